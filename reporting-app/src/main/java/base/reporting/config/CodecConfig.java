@@ -0,0 +1,59 @@
+package mch.reporting.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+// Binary encodings chosen through the Accept header: application/x-jackson-smile and application/cbor, JSON stays the default
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public CodecCustomizer binaryCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        // Same modules and features as the JSON mapper, only the wire format differs
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2SmileEncoder(smileMapper));
+            configurer.customCodecs().register(new Jackson2SmileDecoder(smileMapper));
+            configurer.customCodecs().register(new CollectingCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+        };
+    }
+
+    // Jackson2CborEncoder only encodes single values. A Flux is collected and written as one CBOR array,
+    // like Smile and JSON write it as one array; the ndjson stream endpoints do not produce CBOR.
+    static class CollectingCborEncoder extends Jackson2CborEncoder {
+
+        CollectingCborEncoder(ObjectMapper cborMapper) {
+            super(cborMapper);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package mch.reporting.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.repository.QueryTier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// One Hikari pool per QueryTier behind a routing DataSource, so scans cannot hold every connection interactive calls need.
+// Each pool is a bean of its own and reports hikaricp.* metrics under its pool name.
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reporting-interactive");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource analyticsDataSource(DataSourceProperties dataSourceProperties, ReportingProperties reportingProperties) {
+        ReportingProperties.Datasource properties = reportingProperties.getDatasource();
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("reporting-analytics");
+        dataSource.setMaximumPoolSize(properties.getAnalyticsPoolSize());
+        int maxConcurrentExports = reportingProperties.getExport().getMaxConcurrentExports();
+        if (maxConcurrentExports >= properties.getAnalyticsPoolSize()) {
+            log.warn("{} concurrent exports can hold all {} analytics connections, scans and statistics will wait for them",
+                    maxConcurrentExports, properties.getAnalyticsPoolSize());
+        }
+        if (properties.getReplicaUrl() != null && !properties.getReplicaUrl().isBlank()) {
+            dataSource.setJdbcUrl(properties.getReplicaUrl());
+            if (properties.getReplicaUsername() != null) {
+                dataSource.setUsername(properties.getReplicaUsername());
+                dataSource.setPassword(properties.getReplicaPassword());
+            }
+            dataSource.setReadOnly(true);
+            log.info("Analytics queries read from replica {}", properties.getReplicaUrl());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("interactiveDataSource") DataSource interactiveDataSource,
+                                 @Qualifier("analyticsDataSource") DataSource analyticsDataSource) {
+        AbstractRoutingDataSource routingDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return QueryTier.current();
+            }
+        };
+        routingDataSource.setTargetDataSources(Map.of(
+                QueryTier.INTERACTIVE, interactiveDataSource,
+                QueryTier.ANALYTICS, analyticsDataSource));
+        routingDataSource.setDefaultTargetDataSource(interactiveDataSource);
+        return routingDataSource;
+    }
+}
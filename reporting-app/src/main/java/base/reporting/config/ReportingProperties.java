@@ -0,0 +1,268 @@
+package mch.reporting.config;
+
+import lombok.Data;
+import mch.reporting.model.ReportView;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "reporting")
+public class ReportingProperties {
+
+    private Statistics statistics = new Statistics();
+    private Query query = new Query();
+    private Stream stream = new Stream();
+    private Page page = new Page();
+    private Rollup rollup = new Rollup();
+    private Cache cache = new Cache();
+    private TimeSeries timeseries = new TimeSeries();
+    private Export export = new Export();
+    private Tail tail = new Tail();
+    private Live live = new Live();
+    private Outcome outcome = new Outcome();
+    private Coalescing coalescing = new Coalescing();
+    private Partitioning partitioning = new Partitioning();
+    private Lookup lookup = new Lookup();
+    private Datasource datasource = new Datasource();
+    private Signatures signatures = new Signatures();
+    private Sketches sketches = new Sketches();
+    private Snapshots snapshots = new Snapshots();
+
+    @Data
+    public static class Statistics {
+        // Channels counted by StatisticResponse, keyed by the name exposed in the response
+        private Map<String, String> channels = new LinkedHashMap<>();
+        // errorBody fragment that marks a report as an error
+        private String errorMarker = "error";
+        // errorBody value that marks a report as a success
+        private String successMarker = "success";
+    }
+
+    public enum QueryMode {
+        // Blocking JPA calls run on a dedicated bounded scheduler
+        BOUNDED_ELASTIC,
+        // Blocking JPA calls run on the subscribing thread
+        DIRECT
+    }
+
+    @Data
+    public static class Query {
+        private QueryMode mode = QueryMode.BOUNDED_ELASTIC;
+        private int threads = 10;
+        private int queueSize = 1000;
+        // Upper bound for a single repository call as seen by the caller
+        private Duration timeout = Duration.ofSeconds(30);
+        // Calls slower than this are logged with their name
+        private Duration slowQueryThreshold = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class Stream {
+        // Rows pulled from the database cursor per round trip
+        private int fetchSize = 500;
+    }
+
+    @Data
+    public static class Page {
+        // Page size used when a page is requested without a limit
+        private int defaultSize = 100;
+        private int maxSize = 1000;
+        // List endpoints return summaries unless view=full or fields are requested
+        private ReportView defaultView = ReportView.SUMMARY;
+        private int previewLength = 120;
+    }
+
+    @Data
+    public static class Rollup {
+        // Answer statistics for completed days from report_event_daily_rollup
+        private boolean enabled = true;
+        // Report ids folded per transaction
+        private int batchSize = 50000;
+        private int maxBatchesPerRun = 20;
+        // Rows committed after a higher id was folded are picked up by recomputing the last days below the watermark
+        private Duration refoldInterval = Duration.ofMinutes(10);
+        private int refoldDays = 2;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // Lifetime of the total count and last report date
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration statisticsTtl = Duration.ofMinutes(5);
+        private long statisticsMaxSize = 500;
+        // How often max(id) and the delete and update counters are compared to decide whether rows changed
+        private Duration watermarkCheckInterval = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class TimeSeries {
+        // Guards against minute buckets over long ranges
+        private int maxBuckets = 10000;
+    }
+
+    @Data
+    public static class Export {
+        // Directory background export jobs write to
+        private String directory = System.getProperty("java.io.tmpdir") + "/reporting-exports";
+        // Larger than the stream fetch size, exports read the whole range
+        private int fetchSize = 5000;
+        // Rows encoded per compressed chunk
+        private int rowsPerChunk = 1000;
+        // Downloads and background jobs running at once, more are answered with 503.
+        // Below datasource.analytics-pool-size, so exports leave connections to the other analytics queries
+        private int maxConcurrentExports = 2;
+        // Finished jobs and their files are removed after this
+        private Duration jobRetention = Duration.ofHours(1);
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Tail {
+        // One query per interval is shared by every follower
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 1000;
+        // Ids below the highest one seen that are read again, rows committing out of id order within it still reach followers
+        private int reorderWindow = 500;
+        // Rows kept for a slow follower before its oldest ones are dropped
+        private int subscriberBuffer = 10000;
+        private Duration heartbeat = Duration.ofSeconds(15);
+    }
+
+    @Data
+    public static class Live {
+        // In-memory counters answering /lastWeek, kept current by id watermark
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 10000;
+        // Rows committed out of id order are only picked up by the reconciliation
+        private Duration reconcileInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Outcome {
+        // Read the outcome column once the backfill reached max(id), the trigger only knows the default markers
+        private boolean columnEnabled = true;
+        private int backfillBatchSize = 50000;
+        private int maxBatchesPerRun = 20;
+    }
+
+    @Data
+    public static class Coalescing {
+        private boolean enabled = true;
+        // How long a finished result keeps answering identical requests, zero shares in-flight calls only
+        private Duration reuseWindow = Duration.ofSeconds(1);
+    }
+
+    public enum RetentionAction {
+        // Expired partitions become standalone tables outside report_event
+        DETACH,
+        DROP
+    }
+
+    @Data
+    public static class Partitioning {
+        // Converts report_event to monthly range partitions on first run, rows need a created_at
+        private boolean enabled = false;
+        private Duration interval = Duration.ofHours(1);
+        private int monthsAhead = 3;
+        // Whole months kept before the current one, zero keeps everything
+        private int retentionMonths = 0;
+        private RetentionAction retentionAction = RetentionAction.DETACH;
+        // Writes each expired partition as gzip CSV before it leaves the table
+        private boolean archive = false;
+        private String archiveDirectory = System.getProperty("java.io.tmpdir") + "/reporting-archive";
+    }
+
+    @Data
+    public static class Lookup {
+        // Ids accepted by one bulk lookup
+        private int maxIds = 10000;
+        // Ids bound to one = any(?) query
+        private int chunkSize = 1000;
+    }
+
+    @Data
+    public static class Datasource {
+        // Pool and workers for the analytics tier, spring.datasource.hikari sizes the interactive pool.
+        // Every running export holds one of these connections, the pool is kept larger than export.max-concurrent-exports
+        private int analyticsPoolSize = 4;
+        private int analyticsThreads = 4;
+        // The analytics tier reads from this replica when set, credentials default to the primary ones
+        private String replicaUrl;
+        private String replicaUsername;
+        private String replicaPassword;
+        // QueryExecutor call names routed to the analytics tier, every other call is interactive
+        private Set<String> analyticsQueries = new LinkedHashSet<>(List.of(
+                "ReportRepository.findAll",
+                "ReportRepository.findAllByCreatedAtBetween",
+                "ReportRepository.findAllByChannelNameEqualsIgnoreCase",
+                "ReportRepository.findAllByErrorBodyMatching",
+                "ReportRepository.countAllByErrorBodyMatching",
+                "ReportRepository.findAllByErrorBodyEquals",
+                "ReportRepository.countAllByErrorBodyEquals",
+                "ReportRepository.findAllByEventPayloadMatching",
+                "ReportRepository.countAllByEventPayloadMatching",
+                "ReportRepository.countStatisticsByChannelBetween",
+                "ReportRepository.countOutcomeStatisticsByChannelBetween",
+                "ReportJdbcRepository.search",
+                "ReportJdbcRepository.countByBucket",
+                "ReportJdbcRepository.topErrorSignatures"));
+    }
+
+    @Data
+    public static class Signatures {
+        // Signatures returned by /errors/top when no limit is given
+        private int defaultLimit = 20;
+        private int maxLimit = 500;
+        // Most recent ids returned per signature
+        private int sampleSize = 5;
+    }
+
+    @Data
+    public static class Sketches {
+        // Distinct channel and error signature sketches behind /estimates, fed from every row by id watermark.
+        // Off by default, the first run reads the whole table once
+        private boolean enabled = false;
+        private Duration pollInterval = Duration.ofSeconds(5);
+        private int batchSize = 10000;
+        // Bounds the catch-up over an existing table per run
+        private int maxBatchesPerRun = 10;
+        // 2^precision HyperLogLog registers, 14 gives about 0.8% error
+        private int precision = 14;
+        private int countMinDepth = 4;
+        private int countMinWidth = 4096;
+        // Heavy hitter candidates kept next to the count-min sketch
+        private int topSignatures = 50;
+    }
+
+    public enum SnapshotKind {
+        LAST_WEEK,
+        // The statistic-range and errors/top responses for the last days up to today
+        STATISTIC_RANGE,
+        TOP_ERRORS
+    }
+
+    @Data
+    public static class SnapshotDefinition {
+        private SnapshotKind kind = SnapshotKind.LAST_WEEK;
+        private int days = 7;
+    }
+
+    @Data
+    public static class Snapshots {
+        // Responses precomputed on the cron, stored gzip-compressed and served from /snapshots/{name}
+        private String cron = "0 0 6 * * MON";
+        private String directory = System.getProperty("java.io.tmpdir") + "/reporting-snapshots";
+        // Keyed by snapshot name, letters, digits, dash and underscore only
+        private Map<String, SnapshotDefinition> definitions = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,21 @@
+package mch.reporting.controller;
+
+import mch.reporting.service.ApproximateCounts;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// approx=true is accepted by every /reporting endpoint without being part of each signature
+@Component
+public class ApproximateCountWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (Boolean.parseBoolean(exchange.getRequest().getQueryParams().getFirst("approx"))) {
+            return chain.filter(exchange).contextWrite(ApproximateCounts::enable);
+        }
+        return chain.filter(exchange);
+    }
+}
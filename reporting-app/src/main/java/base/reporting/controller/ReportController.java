@@ -2,14 +2,54 @@ package mch.reporting.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
 import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ErrorSignatureResponse;
+import mch.reporting.model.EstimateResponse;
+import mch.reporting.model.ExportJob;
+import mch.reporting.model.ReportOutcome;
 import mch.reporting.model.ReportResponse;
+import mch.reporting.model.ReportSnapshot;
+import mch.reporting.model.ReportStreamElement;
+import mch.reporting.model.ReportView;
 import mch.reporting.model.StatisticResponse;
+import mch.reporting.model.TimeSeriesResponse;
+import mch.reporting.repository.ReportCriteria;
+import mch.reporting.repository.ReportField;
+import mch.reporting.service.ReportDates;
+import mch.reporting.service.ReportExportService;
 import mch.reporting.service.ReportService;
+import mch.reporting.service.ReportSnapshotService;
+import mch.reporting.service.ReportTailService;
 import mch.reporting.service.ReportingService;
+import mch.reporting.service.RequestCoalescer;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -18,17 +58,24 @@ import reactor.core.publisher.Mono;
 public class ReportController implements ReportService {
 
     private final ReportingService reportingService;
+    private final ReportingProperties reportingProperties;
+    private final ReportExportService reportExportService;
+    private final ReportTailService reportTailService;
+    private final RequestCoalescer requestCoalescer;
+    private final ReportSnapshotService reportSnapshotService;
 
     @Override
-    public Mono<ReportResponse> getAll() {
+    public Mono<ReportResponse> getAll(Integer limit, String after, Set<String> fields, String view) {
         log.info("Entering Get all reports");
-        return reportingService.getAllReports();
+        return pageOr(ReportCriteria.all(), limit, after, fields, view,
+                reportingService::getAllReports);
     }
 
     @Override
-    public Mono<ReportResponse> getByDateBetween(String dateStart, String dateEnd) {
+    public Mono<ReportResponse> getByDateBetween(String dateStart, String dateEnd, Integer limit, String after, Set<String> fields, String view) {
         log.info("Entering Get by date-range reports");
-        return reportingService.getByDateBetween(dateStart, dateEnd);
+        return pageOr(dateRange(dateStart, dateEnd), limit, after, fields, view,
+                () -> reportingService.getByDateBetween(dateStart, dateEnd));
     }
 
     @Override
@@ -38,40 +85,265 @@ public class ReportController implements ReportService {
     }
 
     @Override
-    public Mono<ReportResponse> getByChannel(String channel) {
+    public Mono<ReportResponse> getByIds(List<Long> ids) {
+        log.info("Entering Get by ids reports");
+        return reportingService.getByIds(ids);
+    }
+
+    @Override
+    public Flux<ReportStreamElement> lookupIds(List<Long> ids) {
+        log.info("Entering Lookup ids reports");
+        return reportingService.lookupIds(ids);
+    }
+
+    @Override
+    public Mono<ReportResponse> getByChannel(String channel, Integer limit, String after, Set<String> fields, String view) {
         log.info("Entering Get by channel reports");
-        return reportingService.getAllReportsByChannelName(channel);
+        return pageOr(ReportCriteria.builder().channelName(channel).build(), limit, after, fields, view,
+                () -> reportingService.getAllReportsByChannelName(channel));
     }
 
     @Override
-    public Mono<ReportResponse> getByDate(String date) {
+    public Mono<ReportResponse> getByDate(String date, Integer limit, String after, Set<String> fields, String view) {
         log.info("Entering Get by date reports");
-        return reportingService.getAllReportsByDate(date);
+        return pageOr(dateRange(date, date), limit, after, fields, view,
+                () -> reportingService.getAllReportsByDate(date));
     }
 
     @Override
-    public Mono<ReportResponse> getByError(String errorMessageBody) {
+    public Mono<ReportResponse> getByError(String errorMessageBody, Integer limit, String after, Set<String> fields, String view) {
         log.info("Entering Get by error reports");
-        return reportingService.getAllReportsByErrorBody(errorMessageBody);
+        return pageOr(ReportCriteria.builder().errorBodyContains(errorMessageBody).build(), limit, after, fields, view,
+                () -> reportingService.getAllReportsByErrorBody(errorMessageBody));
+    }
+
+    @Override
+    public Mono<ReportResponse> searchErrors(String q, Integer limit) {
+        log.info("Entering Search error reports");
+        return reportingService.searchReports(ReportField.ERROR_BODY, q, limit);
+    }
+
+    @Override
+    public Mono<ReportResponse> getBySuccess(String successMessageBody, Integer limit, String after, Set<String> fields, String view) {
+        return pageOr(ReportCriteria.builder().errorBodyEquals("success").build(), limit, after, fields, view,
+                () -> reportingService.getAllReportsByErrorBodySuccess("success"));
+    }
+
+    @Override
+    public Mono<ReportResponse> getByPayload(String payloadBody, Integer limit, String after, Set<String> fields, String view) {
+        return pageOr(ReportCriteria.builder().eventPayloadContains(payloadBody).build(), limit, after, fields, view,
+                () -> reportingService.getAllReportsByEventPayload(payloadBody));
+    }
+
+    @Override
+    public Mono<ReportResponse> searchPayloads(String q, Integer limit) {
+        log.info("Entering Search payload reports");
+        return reportingService.searchReports(ReportField.EVENT_PAYLOAD, q, limit);
     }
 
     @Override
-    public Mono<ReportResponse> getBySuccess(String successMessageBody) {
-        return reportingService.getAllReportsByErrorBodySuccess("success");
+    public Mono<ReportResponse> search(String channel, String dateStart, String dateEnd, String outcome,
+                                       String error, String payload, Integer limit, String after, Set<String> fields, String view) {
+        log.info("Entering Search reports");
+        // Every filter is pushed down into one query, always paged
+        ReportCriteria criteria = ReportCriteria.builder()
+                .channelName(channel)
+                .start(dateStart != null ? ReportDates.startOfDay(dateStart) : null)
+                .end(dateEnd != null ? ReportDates.endOfDay(dateEnd) : null)
+                .outcome(outcome != null ? ReportOutcome.from(outcome) : null)
+                .errorBodyContains(error)
+                .eventPayloadContains(payload)
+                .build();
+        int pageLimit = limit != null ? limit : reportingProperties.getPage().getDefaultSize();
+        return pageOr(criteria, pageLimit, after, fields, view, null);
     }
 
     @Override
-    public Mono<ReportResponse> getByPayload(String payloadBody) {
-        return reportingService.getAllReportsByEventPayload(payloadBody);
+    public Mono<ErrorSignatureResponse> getTopErrors(String dateStart, String dateEnd, String channel, String q, Integer limit) {
+        log.info("Entering Get top errors");
+        String key = ReportDates.parse(dateStart) + "|" + ReportDates.parse(dateEnd) + "|" + channel + "|" + q + "|" + limit;
+        return requestCoalescer.coalesce("errors-top", key, () -> reportingService.getTopErrorSignatures(dateStart, dateEnd, channel, q, limit));
     }
 
     @Override
     public Mono<StatisticResponse> getLastWeek(){
-        return reportingService.getLastWeekStatistics();
+        return requestCoalescer.coalesce("lastWeek", "", reportingService::getLastWeekStatistics);
     }
 
     @Override
     public Mono<StatisticResponse> getStatisticByRange(String dateStart, String dateEnd){
-        return reportingService.getStatisticsForDateRange(dateStart, dateEnd);
+        String key = ReportDates.parse(dateStart) + "|" + ReportDates.parse(dateEnd);
+        return requestCoalescer.coalesce("statistic-range", key, () -> reportingService.getStatisticsForDateRange(dateStart, dateEnd));
+    }
+
+    @Override
+    public Mono<EstimateResponse> getEstimates() {
+        log.info("Entering Get estimates");
+        return reportingService.getEstimates();
+    }
+
+    @Override
+    public Mono<TimeSeriesResponse> getTimeSeries(String dateStart, String dateEnd, String bucket, String groupBy) {
+        log.info("Entering Get time series");
+        String key = ReportDates.parse(dateStart) + "|" + ReportDates.parse(dateEnd) + "|" + bucket.toLowerCase(Locale.ROOT) + "|" + groupBy.toLowerCase(Locale.ROOT);
+        return requestCoalescer.coalesce("timeseries", key, () -> reportingService.getTimeSeries(dateStart, dateEnd, bucket, groupBy));
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamAll() {
+        log.info("Entering Stream all reports");
+        return reportingService.streamReports(ReportCriteria.all());
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamByChannel(String channel) {
+        log.info("Entering Stream by channel reports");
+        return reportingService.streamReports(ReportCriteria.builder().channelName(channel).build());
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamByDate(String date) {
+        log.info("Entering Stream by date reports");
+        return reportingService.streamReports(dateRange(date, date));
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamByDateBetween(String dateStart, String dateEnd) {
+        log.info("Entering Stream by date-range reports");
+        return reportingService.streamReports(dateRange(dateStart, dateEnd));
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamByError(String errorMessageBody) {
+        log.info("Entering Stream by error reports");
+        return reportingService.streamReports(ReportCriteria.builder().errorBodyContains(errorMessageBody).build());
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamBySuccess(String successMessageBody) {
+        return reportingService.streamReports(ReportCriteria.builder().errorBodyEquals("success").build());
+    }
+
+    @Override
+    public Flux<ReportStreamElement> streamByPayload(String payloadBody) {
+        return reportingService.streamReports(ReportCriteria.builder().eventPayloadContains(payloadBody).build());
+    }
+
+    @Override
+    public Flux<ServerSentEvent<ReportEntity>> tail(String channel) {
+        log.info("Entering Tail reports");
+        return reportTailService.tail(channel);
+    }
+
+    @Override
+    public ResponseEntity<Flux<DataBuffer>> exportCsv(String dateStart, String dateEnd, String channel) {
+        log.info("Entering Export reports");
+        ReportCriteria criteria = exportCriteria(dateStart, dateEnd, channel);
+        String filename = "report_event_" + dateStart + "_" + dateEnd + ".csv.gz";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(reportExportService.exportCsvGzipBuffers(criteria));
+    }
+
+    @Override
+    public Mono<ExportJob> startExportJob(String dateStart, String dateEnd, String channel) {
+        log.info("Entering Start export job");
+        ReportCriteria criteria = exportCriteria(dateStart, dateEnd, channel);
+        return Mono.fromSupplier(() -> reportExportService.startExportJob(criteria));
+    }
+
+    @Override
+    public Mono<ExportJob> getExportJob(String id) {
+        return reportExportService.getExportJob(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export job " + id)));
+    }
+
+    @Override
+    public Flux<ReportSnapshot> getSnapshots() {
+        return Flux.fromIterable(reportSnapshotService.list());
+    }
+
+    // The stored gzip file is sent as it is, clients without gzip get it inflated
+    @Override
+    public Mono<ResponseEntity<Resource>> getSnapshot(String name, String ifNoneMatch, String acceptEncoding) {
+        ReportSnapshot snapshot = reportSnapshotService.find(name)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown snapshot " + name));
+        if (matches(ifNoneMatch, snapshot.getEtag())) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build());
+        }
+        Path file = reportSnapshotService.file(snapshot);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .lastModified(snapshot.getCreatedAt().atZone(ZoneId.systemDefault()))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding)) {
+            return Mono.just(response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(new FileSystemResource(file)));
+        }
+        return Mono.fromCallable(() -> {
+                    try (InputStream inflated = new GZIPInputStream(Files.newInputStream(file))) {
+                        return response.<Resource>body(new ByteArrayResource(inflated.readAllBytes()));
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if ((name.equals("gzip") || name.equals("*")) && !refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Summaries unless full rows or fields are asked for, then a keyset page when any paging parameter is present and the full listing otherwise
+    private Mono<ReportResponse> pageOr(ReportCriteria criteria, Integer limit, String after, Set<String> fields, String view,
+                                        Supplier<Mono<ReportResponse>> unpaged) {
+        if (fields == null && ReportView.from(view, reportingProperties.getPage().getDefaultView()) == ReportView.SUMMARY) {
+            return reportingService.getReportSummaries(criteria, after, limit);
+        }
+        if (limit == null && after == null && fields == null && unpaged != null) {
+            return unpaged.get();
+        }
+        return reportingService.getReportsPage(criteria, after, limit, fields);
+    }
+
+    private static ReportCriteria exportCriteria(String dateStart, String dateEnd, String channel) {
+        ReportCriteria criteria = dateRange(dateStart, dateEnd);
+        criteria.setChannelName(channel);
+        return criteria;
+    }
+
+    private static ReportCriteria dateRange(String dateStart, String dateEnd) {
+        return ReportCriteria.builder()
+                .start(ReportDates.startOfDay(dateStart))
+                .end(ReportDates.endOfDay(dateEnd))
+                .build();
     }
 }
@@ -0,0 +1,29 @@
+package mch.reporting.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
+@RestControllerAdvice
+public class ReportExceptionHandler {
+
+    // Malformed dates, tokens or field names are client errors
+    @ExceptionHandler({IllegalArgumentException.class, DateTimeParseException.class})
+    public ProblemDetail handleBadRequest(RuntimeException e) {
+        log.info("Rejected request: {}", e.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    // A capacity limit was reached, the client may retry later
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ProblemDetail handleRejected(RejectedExecutionException e) {
+        log.info("Rejected request: {}", e.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+}
@@ -0,0 +1,37 @@
+package mch.reporting.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Per day and channel counters of report_event, maintained by ReportRollupService
+@Entity
+@Table(name = "report_event_daily_rollup", schema = "test_support")
+@Data
+public class ReportDailyRollupEntity {
+
+    @EmbeddedId
+    private Key key;
+    private Long totalCount;
+    private Long errorCount;
+    private Long successCount;
+    private Long otherCount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        @Column(name = "channel_name")
+        private String channelName;
+    }
+}
@@ -1,9 +1,12 @@
 package mch.reporting.entity;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.Data;
+import mch.reporting.model.ReportOutcome;
 import org.hibernate.annotations.Immutable;
 
 import java.time.LocalDateTime;
@@ -19,4 +22,8 @@ public class ReportEntity {
     private String eventPayload;
     private String errorBody;
     private LocalDateTime createdAt;
+    // Set by the report_event_classify trigger, or by the backfill for older rows
+    @Enumerated(EnumType.STRING)
+    private ReportOutcome outcome;
+    private String errorCode;
 }
@@ -0,0 +1,24 @@
+package mch.reporting.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Last report_event row folded into an incremental job
+@Entity
+@Table(name = "report_event_watermark", schema = "test_support")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportRollupWatermarkEntity {
+
+    @Id
+    private String name;
+    private Long lastId;
+    private LocalDateTime lastCreatedAt;
+}
@@ -0,0 +1,24 @@
+package mch.reporting.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Errors of one channel sharing a normalised errorBody
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ErrorSignature {
+
+    private String signature;
+    private String channelName;
+    private long count;
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+    // Most recent ids, to be fetched through /reporting/ids
+    private List<Long> sampleIds;
+}
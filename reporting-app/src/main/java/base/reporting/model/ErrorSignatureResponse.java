@@ -0,0 +1,18 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class ErrorSignatureResponse {
+
+    // Errors and distinct signatures in the range, including those below the top N
+    private Long totalErrorCount;
+    private Long signatureCount;
+    // Most frequent first
+    private List<ErrorSignature> signatures;
+}
@@ -0,0 +1,26 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.util.List;
+
+// Approximate figures over the whole table, read from planner statistics and in-memory sketches
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder(toBuilder = true)
+public class EstimateResponse {
+
+    private boolean estimated;
+    // Planner row estimate, null until report_event was analyzed
+    private Long totalItemsCount;
+    // Rows fed to the sketches so far, complete once they caught up with the table
+    private long sketchedItemsCount;
+    private long sketchedErrorCount;
+    private Long sketchedThroughId;
+    private boolean complete;
+    private long distinctChannels;
+    private long distinctErrorSignatures;
+    // Most frequent signatures with count-min estimates, no channel, dates or samples
+    private List<ErrorSignature> topErrorSignatures;
+}
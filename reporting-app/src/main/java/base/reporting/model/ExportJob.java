@@ -0,0 +1,28 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// State of a background report_event export
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class ExportJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String id;
+    private Status status;
+    private String file;
+    private long rowCount;
+    private long byteCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
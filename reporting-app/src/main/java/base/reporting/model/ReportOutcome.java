@@ -0,0 +1,17 @@
+package mch.reporting.model;
+
+import java.util.Arrays;
+
+// Classification of a report by its errorBody
+public enum ReportOutcome {
+    ERROR,
+    SUCCESS,
+    OTHER;
+
+    public static ReportOutcome from(String value) {
+        return Arrays.stream(values())
+                .filter(outcome -> outcome.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown outcome: " + value));
+    }
+}
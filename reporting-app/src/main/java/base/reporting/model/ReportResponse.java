@@ -1,5 +1,6 @@
 package mch.reporting.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import mch.reporting.entity.ReportEntity;
 
@@ -14,6 +15,18 @@ public class ReportResponse {
     private Long totalQueryCount;
     private Long totalItemsCount;
     private float percentageCount;
+    // True when approx=true was requested, the counts then come from planner estimates
+    private boolean estimated;
+    // Present when more pages follow, pass it back as "after" to read the next one
+    private String continuationToken;
     @Singular
     private List<ReportEntity> reportEntities;
+    // Filled instead of reportEntities for the summary view
+    @Singular
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<ReportSummary> reportSummaries;
+    // Requested ids without a register, in request order
+    @Singular
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<Long> missingIds;
 }
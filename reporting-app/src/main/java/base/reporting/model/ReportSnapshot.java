@@ -0,0 +1,19 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A precomputed response stored gzip-compressed on disk
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class ReportSnapshot {
+
+    private String name;
+    // Quoted SHA-256 of the compressed bytes, identical responses keep their ETag across refreshes
+    private String etag;
+    private long byteCount;
+    private LocalDateTime createdAt;
+}
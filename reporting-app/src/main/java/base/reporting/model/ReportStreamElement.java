@@ -0,0 +1,21 @@
+package mch.reporting.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import mch.reporting.entity.ReportEntity;
+
+// One line of a streamed listing: either a report, a requested id without a report or the trailing summary
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportStreamElement {
+
+    private ReportEntity reportEntity;
+    private Long missingId;
+    private Long totalQueryCount;
+    private Long totalItemsCount;
+    private Float percentageCount;
+    private Boolean estimated;
+}
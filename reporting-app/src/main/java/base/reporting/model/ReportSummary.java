@@ -0,0 +1,20 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// List row without the text bodies, GET /reporting/{id} or /reporting/ids return them in full
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class ReportSummary {
+
+    private Long id;
+    private String channelName;
+    private LocalDateTime createdAt;
+    private ReportOutcome outcome;
+    private Integer payloadLength;
+    private String payloadPreview;
+}
@@ -0,0 +1,21 @@
+package mch.reporting.model;
+
+import java.util.Arrays;
+
+// Shape of the reports in a list response
+public enum ReportView {
+    // ReportSummary rows without the text bodies
+    SUMMARY,
+    // Complete ReportEntity rows
+    FULL;
+
+    public static ReportView from(String value, ReportView defaultView) {
+        if (value == null) {
+            return defaultView;
+        }
+        return Arrays.stream(values())
+                .filter(view -> view.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown view: " + value));
+    }
+}
@@ -2,6 +2,8 @@ package mch.reporting.model;
 
 import lombok.*;
 
+import java.util.Map;
+
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @NoArgsConstructor
 @Data
@@ -20,4 +22,6 @@ public class StatisticResponse {
     private float percentageResidentCount;
     private float percentagePropertyDlqCount;
     private float percentageResidentDlqCount;
+    private Map<String, Long> channelCounts;
+    private Map<String, Float> channelPercentages;
 }
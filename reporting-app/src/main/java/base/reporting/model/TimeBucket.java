@@ -0,0 +1,26 @@
+package mch.reporting.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+// Width of a time series bucket, sqlUnit is the date_trunc field
+@Getter
+@RequiredArgsConstructor
+public enum TimeBucket {
+    MINUTE("minute", ChronoUnit.MINUTES),
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS);
+
+    private final String sqlUnit;
+    private final ChronoUnit unit;
+
+    public static TimeBucket from(String value) {
+        return Arrays.stream(values())
+                .filter(bucket -> bucket.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown bucket: " + value));
+    }
+}
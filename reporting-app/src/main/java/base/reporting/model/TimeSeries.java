@@ -0,0 +1,15 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class TimeSeries {
+
+    private String key;
+    private long total;
+    // One count per TimeSeriesResponse timestamp
+    private long[] counts;
+}
@@ -0,0 +1,17 @@
+package mch.reporting.model;
+
+import java.util.Arrays;
+
+// Dimension splitting a time series into several series
+public enum TimeSeriesGrouping {
+    NONE,
+    CHANNEL,
+    OUTCOME;
+
+    public static TimeSeriesGrouping from(String value) {
+        return Arrays.stream(values())
+                .filter(grouping -> grouping.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown groupBy: " + value));
+    }
+}
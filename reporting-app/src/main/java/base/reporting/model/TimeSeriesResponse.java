@@ -0,0 +1,20 @@
+package mch.reporting.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Columnar series: counts of every series are aligned with the shared timestamps
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Data
+@Builder
+public class TimeSeriesResponse {
+
+    private TimeBucket bucket;
+    private TimeSeriesGrouping groupBy;
+    private Long totalItemsCount;
+    private List<LocalDateTime> timestamps;
+    private List<TimeSeries> series;
+}
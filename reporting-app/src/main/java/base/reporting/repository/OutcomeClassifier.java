@@ -0,0 +1,79 @@
+package mch.reporting.repository;
+
+import lombok.RequiredArgsConstructor;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ReportOutcome;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Renders outcome SQL from the materialised outcome column once it is backfilled, from error_body matching until then
+@RequiredArgsConstructor
+@Component
+public class OutcomeClassifier {
+
+    private final ReportingProperties reportingProperties;
+    private volatile boolean backfilled;
+
+    public boolean isColumnReady() {
+        return backfilled && reportingProperties.getOutcome().isColumnEnabled();
+    }
+
+    public void setBackfilled(boolean backfilled) {
+        this.backfilled = backfilled;
+    }
+
+    // ERROR, SUCCESS or OTHER for each row
+    public String outcomeExpression(List<Object> params) {
+        if (isColumnReady()) {
+            return "coalesce(outcome, 'OTHER')";
+        }
+        ReportingProperties.Statistics markers = reportingProperties.getStatistics();
+        params.add(ReportCriteria.containsPattern(markers.getErrorMarker()));
+        params.add(markers.getSuccessMarker());
+        return "case when error_body ilike ? escape '\\' then 'ERROR' when error_body = ? then 'SUCCESS' else 'OTHER' end";
+    }
+
+    // Selects the same rows as outcomeExpression classifies as the given outcome
+    public String outcomePredicate(ReportOutcome outcome, List<Object> params) {
+        if (isColumnReady()) {
+            params.add(outcome.name());
+            return "outcome = ?";
+        }
+        ReportingProperties.Statistics markers = reportingProperties.getStatistics();
+        String errorPattern = ReportCriteria.containsPattern(markers.getErrorMarker());
+        switch (outcome) {
+            case ERROR -> {
+                params.add(errorPattern);
+                return "error_body ilike ? escape '\\'";
+            }
+            case SUCCESS -> {
+                params.add(markers.getSuccessMarker());
+                params.add(errorPattern);
+                return "error_body = ? and error_body not ilike ? escape '\\'";
+            }
+            default -> {
+                params.add(markers.getSuccessMarker());
+                params.add(errorPattern);
+                return "(error_body is null or (error_body <> ? and error_body not ilike ? escape '\\'))";
+            }
+        }
+    }
+
+    // Text filters that spell out a marker become outcome filters, which the (outcome, created_at) index serves
+    public ReportCriteria rewrite(ReportCriteria criteria) {
+        if (!isColumnReady() || criteria.getOutcome() != null) {
+            return criteria;
+        }
+        ReportingProperties.Statistics markers = reportingProperties.getStatistics();
+        if (criteria.getErrorBodyContains() != null && criteria.getErrorBodyEquals() == null
+                && criteria.getErrorBodyContains().equalsIgnoreCase(markers.getErrorMarker())) {
+            return criteria.toBuilder().errorBodyContains(null).outcome(ReportOutcome.ERROR).build();
+        }
+        if (criteria.getErrorBodyEquals() != null && criteria.getErrorBodyContains() == null
+                && criteria.getErrorBodyEquals().equals(markers.getSuccessMarker())) {
+            return criteria.toBuilder().errorBodyEquals(null).outcome(ReportOutcome.SUCCESS).build();
+        }
+        return criteria;
+    }
+}
@@ -0,0 +1,138 @@
+package mch.reporting.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Runs blocking repository calls lazily and, unless configured otherwise, away from the event loop.
+// Calls are routed by name to a QueryTier, each tier has its own workers and connection pool.
+// Every call is timed under its name and tier and the size of returned collections is recorded.
+@Slf4j
+@Component
+public class QueryExecutor implements DisposableBean {
+
+    private final ReportingProperties.Query properties;
+    private final ReportingProperties.Datasource datasourceProperties;
+    private final Map<QueryTier, Scheduler> schedulers = new EnumMap<>(QueryTier.class);
+    private final MeterRegistry meterRegistry;
+    private final Map<QueryTier, Map<String, Timer>> timers = new EnumMap<>(QueryTier.class);
+    private final Map<String, DistributionSummary> rowCounts = new ConcurrentHashMap<>();
+
+    public QueryExecutor(ReportingProperties reportingProperties, MeterRegistry meterRegistry) {
+        this.properties = reportingProperties.getQuery();
+        this.datasourceProperties = reportingProperties.getDatasource();
+        this.meterRegistry = meterRegistry;
+        schedulers.put(QueryTier.INTERACTIVE, scheduler(QueryTier.INTERACTIVE, properties.getThreads(), "reporting-query"));
+        schedulers.put(QueryTier.ANALYTICS, scheduler(QueryTier.ANALYTICS, datasourceProperties.getAnalyticsThreads(), "reporting-analytics"));
+        // A call routed by its criteria can run on either tier, it gets a timer per tier
+        for (QueryTier tier : QueryTier.values()) {
+            timers.put(tier, new ConcurrentHashMap<>());
+        }
+        log.info("Repository queries run in {} mode with {} interactive and {} analytics threads",
+                properties.getMode(), properties.getThreads(), datasourceProperties.getAnalyticsThreads());
+    }
+
+    // Queue time per tier is reported as reporting.query.scheduler.* tagged with the tier
+    private Scheduler scheduler(QueryTier tier, int threads, String threadPrefix) {
+        Scheduler boundedElastic = Schedulers.newBoundedElastic(threads, properties.getQueueSize(), threadPrefix);
+        return Micrometer.timedScheduler(boundedElastic, meterRegistry, "reporting.query.scheduler", Tags.of("tier", tier.tag()));
+    }
+
+    public <T> Mono<T> mono(String name, Callable<T> query) {
+        return mono(name, tier(name), query);
+    }
+
+    // For queries whose cost depends on their arguments more than on their name
+    public <T> Mono<T> mono(String name, QueryTier tier, Callable<T> query) {
+        return offload(tier, Mono.fromCallable(instrument(name, tier, query)));
+    }
+
+    public <T> Mono<T> optional(String name, Callable<Optional<T>> query) {
+        QueryTier tier = tier(name);
+        return offload(tier, Mono.fromCallable(instrument(name, tier, query))).flatMap(Mono::justOrEmpty);
+    }
+
+    public <T> Flux<T> flux(String name, Callable<? extends Iterable<T>> query) {
+        QueryTier tier = tier(name);
+        return offload(tier, Mono.fromCallable(instrument(name, tier, query))).flatMapMany(Flux::fromIterable);
+    }
+
+    public Scheduler getScheduler(QueryTier tier) {
+        return schedulers.get(tier);
+    }
+
+    public QueryTier tier(String name) {
+        return datasourceProperties.getAnalyticsQueries().contains(name) ? QueryTier.ANALYTICS : QueryTier.INTERACTIVE;
+    }
+
+    // Text filters are ILIKE scans whatever query carries them
+    public QueryTier tier(String name, ReportCriteria criteria) {
+        return criteria.hasTextFilter() ? QueryTier.ANALYTICS : tier(name);
+    }
+
+    // Each query is subscribed on its own worker, so zipped queries run concurrently on separate connections
+    private <T> Mono<T> offload(QueryTier tier, Mono<T> mono) {
+        Mono<T> scheduled = properties.getMode() == ReportingProperties.QueryMode.DIRECT ? mono : mono.subscribeOn(schedulers.get(tier));
+        return properties.getTimeout() != null ? scheduled.timeout(properties.getTimeout()) : scheduled;
+    }
+
+    // Measures execution only, the time spent queued for a worker is reported by the scheduler metrics
+    private <T> Callable<T> instrument(String name, QueryTier tier, Callable<T> query) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                T result = tier.call(query);
+                if (result instanceof Collection<?> rows) {
+                    rowCount(name).record(rows.size());
+                }
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                timer(name, tier).record(elapsed, TimeUnit.NANOSECONDS);
+                if (properties.getSlowQueryThreshold() != null && elapsed > properties.getSlowQueryThreshold().toNanos()) {
+                    log.warn("Slow query {} took {} ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                }
+            }
+        };
+    }
+
+    private Timer timer(String name, QueryTier tier) {
+        return timers.get(tier).computeIfAbsent(name, key -> Timer.builder("reporting.query")
+                .description("Repository call execution time")
+                .tag("query", key)
+                .tag("tier", tier.tag())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary rowCount(String name) {
+        return rowCounts.computeIfAbsent(name, key -> DistributionSummary.builder("reporting.query.rows")
+                .description("Rows returned by a repository call")
+                .tag("query", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    @Override
+    public void destroy() {
+        schedulers.values().forEach(Scheduler::dispose);
+    }
+}
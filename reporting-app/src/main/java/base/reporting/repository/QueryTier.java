@@ -0,0 +1,37 @@
+package mch.reporting.repository;
+
+import java.util.concurrent.Callable;
+
+// Connection pool a repository call is routed to, chosen by QueryExecutor from the call name
+public enum QueryTier {
+    // Point lookups, counts and keyset pages
+    INTERACTIVE,
+    // Scans, full-text matching, exports and statistics
+    ANALYTICS;
+
+    private static final ThreadLocal<QueryTier> CURRENT = new ThreadLocal<>();
+
+    // Tier of the calling thread, calls made outside QueryExecutor such as scheduled jobs stay interactive
+    public static QueryTier current() {
+        QueryTier tier = CURRENT.get();
+        return tier != null ? tier : INTERACTIVE;
+    }
+
+    public <T> T call(Callable<T> callable) throws Exception {
+        QueryTier previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return callable.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,77 @@
+package mch.reporting.repository;
+
+import lombok.Builder;
+import lombok.Data;
+import mch.reporting.model.ReportOutcome;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Filters applied to report_event, rendered as a SQL predicate with positional parameters
+@Data
+@Builder(toBuilder = true)
+public class ReportCriteria {
+
+    private Long id;
+    private String channelName;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String errorBodyContains;
+    private String errorBodyEquals;
+    private String eventPayloadContains;
+    private ReportOutcome outcome;
+
+    public static ReportCriteria all() {
+        return ReportCriteria.builder().build();
+    }
+
+    public boolean hasTextFilter() {
+        return errorBodyContains != null || eventPayloadContains != null;
+    }
+
+    // Appends " where ..." (or nothing) to the statement and collects the bind values
+    public String toWhereClause(List<Object> params, OutcomeClassifier outcomeClassifier) {
+        StringBuilder where = new StringBuilder();
+        if (id != null) {
+            and(where, "id = ?");
+            params.add(id);
+        }
+        if (channelName != null) {
+            and(where, "lower(channel_name) = lower(?)");
+            params.add(channelName);
+        }
+        if (start != null) {
+            and(where, "created_at >= ?");
+            params.add(start);
+        }
+        if (end != null) {
+            and(where, "created_at <= ?");
+            params.add(end);
+        }
+        if (errorBodyContains != null) {
+            and(where, "error_body ilike ? escape '\\'");
+            params.add(containsPattern(errorBodyContains));
+        }
+        if (errorBodyEquals != null) {
+            and(where, "error_body = ?");
+            params.add(errorBodyEquals);
+        }
+        if (eventPayloadContains != null) {
+            and(where, "event_payload ilike ? escape '\\'");
+            params.add(containsPattern(eventPayloadContains));
+        }
+        if (outcome != null) {
+            and(where, outcomeClassifier.outcomePredicate(outcome, params));
+        }
+        return where.toString();
+    }
+
+    private static void and(StringBuilder where, String predicate) {
+        where.append(where.length() == 0 ? " where " : " and ").append(predicate);
+    }
+
+    // ILIKE pattern matching the value anywhere, with its wildcards escaped
+    public static String containsPattern(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,44 @@
+package mch.reporting.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Selectable report_event columns, named as in the JSON payload
+@Getter
+@RequiredArgsConstructor
+public enum ReportField {
+    ID("id", "id"),
+    CHANNEL_NAME("channelName", "channel_name"),
+    EVENT_PAYLOAD("eventPayload", "event_payload"),
+    ERROR_BODY("errorBody", "error_body"),
+    CREATED_AT("createdAt", "created_at"),
+    OUTCOME("outcome", "outcome"),
+    ERROR_CODE("errorCode", "error_code");
+
+    private final String fieldName;
+    private final String columnName;
+
+    // Keyset pagination always needs the (created_at, id) key
+    public static Set<ReportField> parse(Set<String> fieldNames) {
+        if (fieldNames == null || fieldNames.isEmpty()) {
+            return EnumSet.allOf(ReportField.class);
+        }
+        Set<ReportField> fields = EnumSet.of(ID, CREATED_AT);
+        for (String fieldName : fieldNames) {
+            fields.add(Arrays.stream(values())
+                    .filter(field -> field.fieldName.equalsIgnoreCase(fieldName.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown report field: " + fieldName)));
+        }
+        return fields;
+    }
+
+    public static String columns(Set<ReportField> fields) {
+        return fields.stream().map(ReportField::getColumnName).collect(Collectors.joining(", "));
+    }
+}
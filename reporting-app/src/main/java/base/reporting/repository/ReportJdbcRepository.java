@@ -0,0 +1,327 @@
+package mch.reporting.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ContinuationToken;
+import mch.reporting.model.ReportOutcome;
+import mch.reporting.model.ReportSummary;
+import mch.reporting.model.TimeBucket;
+import mch.reporting.model.TimeSeriesGrouping;
+import mch.reporting.repository.projection.DailyChannelStatisticRow;
+import mch.reporting.repository.projection.ErrorSignatureRow;
+import mch.reporting.repository.projection.ReportEntityProjection;
+import mch.reporting.repository.projection.TimeSeriesRow;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Plain JDBC access to report_event for the paths that must not materialise whole result sets
+@Slf4j
+@RequiredArgsConstructor
+@Repository
+public class ReportJdbcRepository {
+
+    public static final String TABLE = "test_support.report_event";
+    public static final String COLUMNS = "id, channel_name, event_payload, error_body, created_at, outcome, error_code";
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\": (\\d+)");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final QueryExecutor queryExecutor;
+    private final OutcomeClassifier outcomeClassifier;
+    private final ReportingProperties reportingProperties;
+
+    // Emits rows as they are read from a server-side cursor, honouring downstream demand
+    public Flux<ReportEntity> stream(ReportCriteria criteria) {
+        return stream(criteria, reportingProperties.getStream().getFetchSize());
+    }
+
+    public Flux<ReportEntity> stream(ReportCriteria criteria, int fetchSize) {
+        List<Object> params = new ArrayList<>();
+        String sql = "select " + COLUMNS + " from " + TABLE + where(criteria, params);
+
+        return Flux.using(
+                        // Cursors hold their connection for the whole stream, they are kept to the analytics pool
+                        () -> QueryTier.ANALYTICS.call(() -> Cursor.open(dataSource, sql, params, fetchSize)),
+                        cursor -> Flux.<ReportEntity>generate(sink -> {
+                            try {
+                                if (cursor.resultSet.next()) {
+                                    sink.next(mapRow(cursor.resultSet));
+                                } else {
+                                    sink.complete();
+                                }
+                            } catch (SQLException e) {
+                                sink.error(e);
+                            }
+                        }),
+                        Cursor::close)
+                .subscribeOn(queryExecutor.getScheduler(QueryTier.ANALYTICS));
+    }
+
+    // Keyset page ordered by (created_at, id), one row more than the limit tells whether another page exists
+    public List<ReportEntity> findPage(ReportCriteria criteria, ContinuationToken after, int limit, Set<ReportField> fields) {
+        List<Object> params = new ArrayList<>();
+        String where = where(criteria, params);
+        StringBuilder sql = new StringBuilder("select ").append(ReportField.columns(fields))
+                .append(" from ").append(TABLE)
+                .append(where);
+        appendKeyset(sql, where, after, limit, params);
+
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> mapRow(resultSet, fields), params.toArray());
+    }
+
+    // Same ordering and paging as findPage, the text bodies are reduced to a length and a short preview in SQL
+    public List<ReportSummary> findSummaries(ReportCriteria criteria, ContinuationToken after, Integer limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("select id, channel_name, created_at, ")
+                .append(outcomeClassifier.outcomeExpression(params)).append(" as outcome, ")
+                .append("length(event_payload) as payload_length, left(event_payload, ?) as payload_preview")
+                .append(" from ").append(TABLE);
+        params.add(reportingProperties.getPage().getPreviewLength());
+        String where = where(criteria, params);
+        sql.append(where);
+        if (limit != null) {
+            appendKeyset(sql, where, after, limit, params);
+        } else {
+            sql.append(" order by created_at, id");
+        }
+
+        // A null payload has a null length, not zero
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> ReportSummary.builder()
+                .id(resultSet.getLong("id"))
+                .channelName(resultSet.getString("channel_name"))
+                .createdAt(resultSet.getObject("created_at", LocalDateTime.class))
+                .outcome(ReportOutcome.valueOf(resultSet.getString("outcome")))
+                .payloadLength(resultSet.getObject("payload_length", Integer.class))
+                .payloadPreview(resultSet.getString("payload_preview"))
+                .build(), params.toArray());
+    }
+
+    // Full rows of the given ids
+    public List<ReportEntity> findByIds(Collection<Long> ids) {
+        String sql = "select " + COLUMNS + " from " + TABLE + " where id = any(?)";
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (resultSet, rowNum) -> mapRow(resultSet));
+    }
+
+    // Continues after the token in (created_at, id) order, one row more than the limit tells whether another page exists
+    private static void appendKeyset(StringBuilder sql, String where, ContinuationToken after, int limit, List<Object> params) {
+        if (after != null) {
+            sql.append(where.isEmpty() ? " where " : " and ").append("(created_at, id) > (?, ?)");
+            params.add(after.getCreatedAt());
+            params.add(after.getId());
+        }
+        sql.append(" order by created_at, id limit ?");
+        params.add(limit + 1);
+    }
+
+    // Rows inserted after the given id in id order, served by the primary key
+    public List<ReportEntity> findAfterId(long lastId, int limit) {
+        return findAfterId(lastId, limit, EnumSet.allOf(ReportField.class));
+    }
+
+    // Same rows with only the given columns, for consumers that never look at the payload
+    public List<ReportEntity> findAfterId(long lastId, int limit, Set<ReportField> fields) {
+        String sql = "select " + ReportField.columns(fields) + " from " + TABLE + " where id > ? order by id limit ?";
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> mapRow(resultSet, fields), lastId, limit);
+    }
+
+    // Rows whose column contains the term, best trigram word similarity first
+    public List<ReportEntity> search(ReportField field, String term, int limit) {
+        String column = field.getColumnName();
+        String sql = "select " + COLUMNS + " from " + TABLE +
+                " where " + column + " ilike ? escape '\\'" +
+                " order by word_similarity(?, " + column + ") desc, created_at desc limit ?";
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> mapRow(resultSet), ReportCriteria.containsPattern(term), term, limit);
+    }
+
+    // Counts per date_trunc bucket and series key in one grouped query
+    public List<TimeSeriesRow> countByBucket(TimeBucket bucket, TimeSeriesGrouping grouping, LocalDateTime start, LocalDateTime end) {
+        List<Object> params = new ArrayList<>();
+        String key = switch (grouping) {
+            case NONE -> "'all'";
+            case CHANNEL -> "lower(channel_name)";
+            case OUTCOME -> outcomeClassifier.outcomeExpression(params);
+        };
+        String sql = "select date_trunc('" + bucket.getSqlUnit() + "', created_at) as bucket_start, " + key + " as series_key, count(*) as total" +
+                " from " + TABLE +
+                " where created_at >= ? and created_at <= ?" +
+                " group by 1, 2 order by 1";
+        params.add(start);
+        params.add(end);
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> new TimeSeriesRow(
+                resultSet.getObject("bucket_start", LocalDateTime.class),
+                resultSet.getString("series_key"),
+                resultSet.getLong("total")), params.toArray());
+    }
+
+    // Statistic counters per day and channel, limited to rows up to an id watermark
+    public List<DailyChannelStatisticRow> countStatisticsByDayAndChannel(LocalDateTime start, LocalDateTime end, long maxId) {
+        List<Object> params = new ArrayList<>();
+        String sql = "select cast(created_at as date) as day, lower(channel_name) as channel_name, count(*) as total_count," +
+                " sum(case when " + outcomeClassifier.outcomePredicate(ReportOutcome.ERROR, params) + " then 1 else 0 end) as error_count," +
+                " sum(case when " + outcomeClassifier.outcomePredicate(ReportOutcome.SUCCESS, params) + " then 1 else 0 end) as success_count" +
+                " from " + TABLE +
+                " where created_at >= ? and created_at <= ? and id <= ?" +
+                " group by 1, 2";
+        params.add(start);
+        params.add(end);
+        params.add(maxId);
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> new DailyChannelStatisticRow(
+                        resultSet.getObject("day", LocalDate.class),
+                        resultSet.getString("channel_name"),
+                        resultSet.getLong("total_count"),
+                        resultSet.getLong("error_count"),
+                        resultSet.getLong("success_count")),
+                params.toArray());
+    }
+
+    // Most frequent error signatures per channel, grouped in the database so raw rows never leave it
+    public List<ErrorSignatureRow> topErrorSignatures(ReportCriteria criteria, int limit, int sampleSize) {
+        List<Object> params = new ArrayList<>();
+        params.add(sampleSize);
+        String sql = "select signature, channel_name, count(*) as error_count, min(created_at) as first_seen, max(created_at) as last_seen," +
+                " (array_agg(id order by created_at desc, id desc))[1:?] as sample_ids," +
+                " count(*) over () as signature_count, sum(count(*)) over () as total_error_count" +
+                " from (select id, lower(channel_name) as channel_name, created_at, test_support.report_event_error_signature(error_body) as signature" +
+                " from " + TABLE + where(criteria.toBuilder().outcome(ReportOutcome.ERROR).build(), params) + ") as errors" +
+                " group by signature, channel_name" +
+                " order by error_count desc, last_seen desc limit ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, (resultSet, rowNum) -> new ErrorSignatureRow(
+                resultSet.getString("signature"),
+                resultSet.getString("channel_name"),
+                resultSet.getLong("error_count"),
+                resultSet.getObject("first_seen", LocalDateTime.class),
+                resultSet.getObject("last_seen", LocalDateTime.class),
+                List.of((Long[]) resultSet.getArray("sample_ids").getArray()),
+                resultSet.getLong("signature_count"),
+                resultSet.getLong("total_error_count")), params.toArray());
+    }
+
+    // Row estimate the planner would use: reltuples scaled to the current size of report_event and its partitions, empty until analyzed
+    public Optional<Long> estimateTotalCount() {
+        String sql = "select sum(case when c.relpages > 0" +
+                " then c.reltuples / c.relpages * (pg_relation_size(c.oid) / current_setting('block_size')::int)" +
+                " else c.reltuples end)::bigint" +
+                " from pg_class c where c.reltuples >= 0" +
+                " and (c.oid = '" + TABLE + "'::regclass or c.oid in (select inhrelid from pg_inherits where inhparent = '" + TABLE + "'::regclass))";
+        return Optional.ofNullable(jdbcTemplate.queryForObject(sql, Long.class));
+    }
+
+    // Planner estimate of the matching rows, the query is planned but never executed
+    public long estimateCount(ReportCriteria criteria) {
+        List<Object> params = new ArrayList<>();
+        String sql = "explain (format json) select 1 from " + TABLE + where(criteria, params);
+        String plan = jdbcTemplate.queryForObject(sql, String.class, params.toArray());
+        // The top plan node lists its own estimate before those of its children
+        Matcher matcher = PLAN_ROWS.matcher(plan != null ? plan : "");
+        if (!matcher.find()) {
+            throw new IllegalStateException("No row estimate in plan " + plan);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    public long count(ReportCriteria criteria) {
+        List<Object> params = new ArrayList<>();
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + TABLE + where(criteria, params), Long.class, params.toArray());
+        return count != null ? count : 0L;
+    }
+
+    private String where(ReportCriteria criteria, List<Object> params) {
+        return outcomeClassifier.rewrite(criteria).toWhereClause(params, outcomeClassifier);
+    }
+
+    public static ReportEntity mapRow(ResultSet resultSet) throws SQLException {
+        return mapRow(resultSet, EnumSet.allOf(ReportField.class));
+    }
+
+    // Rows restricted by fields= leave the unselected fields out of the JSON, full rows serialise as the entity does
+    public static ReportEntity mapRow(ResultSet resultSet, Set<ReportField> fields) throws SQLException {
+        ReportEntity reportEntity = fields.size() == ReportField.values().length ? new ReportEntity() : new ReportEntityProjection();
+        if (fields.contains(ReportField.ID)) {
+            reportEntity.setId(resultSet.getLong("id"));
+        }
+        if (fields.contains(ReportField.CHANNEL_NAME)) {
+            reportEntity.setChannelName(resultSet.getString("channel_name"));
+        }
+        if (fields.contains(ReportField.EVENT_PAYLOAD)) {
+            reportEntity.setEventPayload(resultSet.getString("event_payload"));
+        }
+        if (fields.contains(ReportField.ERROR_BODY)) {
+            reportEntity.setErrorBody(resultSet.getString("error_body"));
+        }
+        if (fields.contains(ReportField.CREATED_AT)) {
+            reportEntity.setCreatedAt(resultSet.getObject("created_at", LocalDateTime.class));
+        }
+        if (fields.contains(ReportField.OUTCOME)) {
+            String outcome = resultSet.getString("outcome");
+            reportEntity.setOutcome(outcome != null ? ReportOutcome.valueOf(outcome) : null);
+        }
+        if (fields.contains(ReportField.ERROR_CODE)) {
+            reportEntity.setErrorCode(resultSet.getString("error_code"));
+        }
+        return reportEntity;
+    }
+
+    // Connection, statement and result set of one open cursor
+    private static final class Cursor {
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        private Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        private static Cursor open(DataSource dataSource, String sql, List<Object> params, int fetchSize) throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                // PostgreSQL only honours the fetch size inside a transaction
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return new Cursor(connection, statement, statement.executeQuery());
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            try (connection; statement; resultSet) {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.warn("Could not close report cursor", e);
+            }
+        }
+    }
+}
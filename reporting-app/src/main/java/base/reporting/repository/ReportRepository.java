@@ -1,7 +1,11 @@
 package mch.reporting.repository;
 
 import mch.reporting.entity.ReportEntity;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -15,8 +19,6 @@ public interface ReportRepository extends JpaRepository<ReportEntity, Long> {
 
     Optional<ReportEntity> findById(Long id);
 
-    Long countAllById(Long id);
-
     List<ReportEntity> findAllByChannelNameEqualsIgnoreCase(String channelName);
 
     Long countAllByChannelNameEqualsIgnoreCase(String channelName);
@@ -25,24 +27,70 @@ public interface ReportRepository extends JpaRepository<ReportEntity, Long> {
 
     Long countAllByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
-    List<ReportEntity> findAllByErrorBodyContainingIgnoreCase(String errorMessageBody);
+    // ILIKE keeps the predicate on the bare column so the pg_trgm index can serve it
+    @Query(value = "select * from test_support.report_event where error_body ilike :pattern escape '\\'", nativeQuery = true)
+    List<ReportEntity> findAllByErrorBodyMatching(@Param("pattern") String pattern);
 
-    Long countAllByErrorBodyContainingIgnoreCase(String errorMessageBody);
+    @Query(value = "select count(*) from test_support.report_event where error_body ilike :pattern escape '\\'", nativeQuery = true)
+    Long countAllByErrorBodyMatching(@Param("pattern") String pattern);
 
     List<ReportEntity> findAllByErrorBodyEquals(String errorBody);
 
     Long countAllByErrorBodyEquals(String errorBody);
 
-    List<ReportEntity> findAllByEventPayloadContainingIgnoreCase(String eventPayload);
-
-    Long countAllByEventPayloadContainingIgnoreCase(String eventPayload);
-
-    Long countAllByErrorBodyContainingIgnoreCaseAndCreatedAtBetween(String errorBody, LocalDateTime start, LocalDateTime end);
+    @Query(value = "select * from test_support.report_event where event_payload ilike :pattern escape '\\'", nativeQuery = true)
+    List<ReportEntity> findAllByEventPayloadMatching(@Param("pattern") String pattern);
 
-    Long countAllByErrorBodyEqualsAndCreatedAtBetween(String errorBody, LocalDateTime start, LocalDateTime end);
-
-    Long countAllByChannelNameEqualsIgnoreCaseAndCreatedAtBetween(String channelName, LocalDateTime start, LocalDateTime end);
+    @Query(value = "select count(*) from test_support.report_event where event_payload ilike :pattern escape '\\'", nativeQuery = true)
+    Long countAllByEventPayloadMatching(@Param("pattern") String pattern);
 
     Optional<ReportEntity> findTopByOrderByCreatedAtDesc(); // Obtains more recent report
 
+    @Query("select max(r.createdAt) from ReportEntity r")
+    Optional<LocalDateTime> findLastCreatedAt(); // Obtains more recent report date without loading the row
+
+    @Query("select max(r.id) from ReportEntity r")
+    Optional<Long> findMaxId();
+
+    // Deleted and updated rows since the statistics were last reset, over the table and its partitions
+    @Query(value = "select coalesce(sum(n_tup_del + n_tup_upd), 0)::bigint from pg_stat_user_tables " +
+            "where relid = 'test_support.report_event'::regclass " +
+            "or relid in (select inhrelid from pg_inherits where inhparent = 'test_support.report_event'::regclass)", nativeQuery = true)
+    long countChangedRows();
+
+    @Query("select max(r.createdAt) from ReportEntity r where r.id > :fromId and r.id <= :toId")
+    Optional<LocalDateTime> findLastCreatedAtBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Every statistic counter in a single scan, one row per channel
+    @Query("select lower(r.channelName) as channelName, " +
+            "count(r) as totalCount, " +
+            "sum(case when lower(r.errorBody) like lower(concat('%', :errorMarker, '%')) then 1 else 0 end) as errorCount, " +
+            "sum(case when r.errorBody = :successMarker then 1 else 0 end) as successCount " +
+            "from ReportEntity r " +
+            "where r.createdAt between :start and :end " +
+            "group by lower(r.channelName)")
+    List<ChannelStatisticProjection> countStatisticsByChannelBetween(@Param("errorMarker") String errorMarker,
+                                                                     @Param("successMarker") String successMarker,
+                                                                     @Param("start") LocalDateTime start,
+                                                                     @Param("end") LocalDateTime end);
+
+    // Same counters read from the materialised outcome column
+    @Query("select lower(r.channelName) as channelName, " +
+            "count(r) as totalCount, " +
+            "sum(case when r.outcome = mch.reporting.model.ReportOutcome.ERROR then 1 else 0 end) as errorCount, " +
+            "sum(case when r.outcome = mch.reporting.model.ReportOutcome.SUCCESS then 1 else 0 end) as successCount " +
+            "from ReportEntity r " +
+            "where r.createdAt between :start and :end " +
+            "group by lower(r.channelName)")
+    List<ChannelStatisticProjection> countOutcomeStatisticsByChannelBetween(@Param("start") LocalDateTime start,
+                                                                            @Param("end") LocalDateTime end);
+
+    // Classifies the rows in (fromId, toId] written before the trigger existed, with the functions the trigger uses
+    @Modifying
+    @Query(value = "update test_support.report_event " +
+            "set outcome = test_support.report_event_outcome(error_body), error_code = test_support.report_event_error_code(error_body) " +
+            "where id > :fromId and id <= :toId and outcome is null",
+            nativeQuery = true)
+    int classifyOutcomesBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
 }
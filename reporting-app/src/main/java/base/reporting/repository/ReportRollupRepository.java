@@ -0,0 +1,73 @@
+package mch.reporting.repository;
+
+import mch.reporting.entity.ReportDailyRollupEntity;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReportRollupRepository extends JpaRepository<ReportDailyRollupEntity, ReportDailyRollupEntity.Key> {
+
+    @Query("select r.key.channelName as channelName, " +
+            "sum(r.totalCount) as totalCount, " +
+            "sum(r.errorCount) as errorCount, " +
+            "sum(r.successCount) as successCount " +
+            "from ReportDailyRollupEntity r " +
+            "where r.key.day between :startDay and :endDay " +
+            "group by r.key.channelName")
+    List<ChannelStatisticProjection> countStatisticsByChannelBetween(@Param("startDay") LocalDate startDay,
+                                                                     @Param("endDay") LocalDate endDay);
+
+    // Adds the counters of the report_event rows in (fromId, toId] to their day and channel
+    @Modifying
+    @Query(value = "insert into test_support.report_event_daily_rollup " +
+            "(day, channel_name, total_count, error_count, success_count, other_count) " +
+            "select cast(e.created_at as date), lower(coalesce(e.channel_name, '')), " +
+            "count(*), " +
+            "count(*) filter (where e.error_body ilike concat('%', :errorMarker, '%')), " +
+            "count(*) filter (where e.error_body = :successMarker), " +
+            "count(*) filter (where e.error_body is null or not (e.error_body ilike concat('%', :errorMarker, '%') or e.error_body = :successMarker)) " +
+            "from test_support.report_event e " +
+            "where e.id > :fromId and e.id <= :toId and e.created_at is not null " +
+            "group by 1, 2 " +
+            "on conflict (day, channel_name) do update set " +
+            "total_count = report_event_daily_rollup.total_count + excluded.total_count, " +
+            "error_count = report_event_daily_rollup.error_count + excluded.error_count, " +
+            "success_count = report_event_daily_rollup.success_count + excluded.success_count, " +
+            "other_count = report_event_daily_rollup.other_count + excluded.other_count",
+            nativeQuery = true)
+    int addCountsBetweenIds(@Param("errorMarker") String errorMarker,
+                            @Param("successMarker") String successMarker,
+                            @Param("fromId") Long fromId,
+                            @Param("toId") Long toId);
+
+    @Modifying
+    @Query(value = "delete from test_support.report_event_daily_rollup where day between :startDay and :endDay", nativeQuery = true)
+    int deleteDays(@Param("startDay") LocalDate startDay, @Param("endDay") LocalDate endDay);
+
+    // Counters of whole days recomputed from every row up to the watermark, after deleteDays on the same range
+    @Modifying
+    @Query(value = "insert into test_support.report_event_daily_rollup " +
+            "(day, channel_name, total_count, error_count, success_count, other_count) " +
+            "select cast(e.created_at as date), lower(coalesce(e.channel_name, '')), " +
+            "count(*), " +
+            "count(*) filter (where e.error_body ilike concat('%', :errorMarker, '%')), " +
+            "count(*) filter (where e.error_body = :successMarker), " +
+            "count(*) filter (where e.error_body is null or not (e.error_body ilike concat('%', :errorMarker, '%') or e.error_body = :successMarker)) " +
+            "from test_support.report_event e " +
+            "where e.created_at >= :start and e.created_at < :end and e.id <= :maxId " +
+            "group by 1, 2",
+            nativeQuery = true)
+    int insertCountsForDays(@Param("errorMarker") String errorMarker,
+                            @Param("successMarker") String successMarker,
+                            @Param("start") LocalDateTime start,
+                            @Param("end") LocalDateTime end,
+                            @Param("maxId") Long maxId);
+}
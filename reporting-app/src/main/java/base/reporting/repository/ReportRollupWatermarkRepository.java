@@ -0,0 +1,15 @@
+package mch.reporting.repository;
+
+import mch.reporting.entity.ReportRollupWatermarkEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReportRollupWatermarkRepository extends JpaRepository<ReportRollupWatermarkEntity, String> {
+
+    // Transaction scoped lock on a watermark name, also held when its row does not exist yet; false when another run holds it
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext(:name))", nativeQuery = true)
+    boolean tryLock(@Param("name") String name);
+}
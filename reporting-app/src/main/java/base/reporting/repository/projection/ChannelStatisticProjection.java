@@ -0,0 +1,9 @@
+package mch.reporting.repository.projection;
+
+// One row per channel of the grouped statistics query
+public interface ChannelStatisticProjection {
+    String getChannelName();
+    Long getTotalCount();
+    Long getErrorCount();
+    Long getSuccessCount();
+}
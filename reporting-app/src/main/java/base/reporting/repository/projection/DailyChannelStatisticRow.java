@@ -0,0 +1,15 @@
+package mch.reporting.repository.projection;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+// Statistic counters of one channel on one day
+@Value
+public class DailyChannelStatisticRow implements ChannelStatisticProjection {
+    LocalDate day;
+    String channelName;
+    Long totalCount;
+    Long errorCount;
+    Long successCount;
+}
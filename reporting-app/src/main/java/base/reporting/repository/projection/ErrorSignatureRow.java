@@ -0,0 +1,19 @@
+package mch.reporting.repository.projection;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One signature of one channel, every row also carries the totals over all signatures
+@Value
+public class ErrorSignatureRow {
+    String signature;
+    String channelName;
+    long count;
+    LocalDateTime firstSeen;
+    LocalDateTime lastSeen;
+    List<Long> sampleIds;
+    long signatureCount;
+    long totalErrorCount;
+}
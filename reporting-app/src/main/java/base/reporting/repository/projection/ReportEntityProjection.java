@@ -0,0 +1,9 @@
+package mch.reporting.repository.projection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import mch.reporting.entity.ReportEntity;
+
+// A report_event row read with fields=, the fields that were not selected are omitted from the JSON
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReportEntityProjection extends ReportEntity {
+}
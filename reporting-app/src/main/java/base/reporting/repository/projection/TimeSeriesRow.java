@@ -0,0 +1,13 @@
+package mch.reporting.repository.projection;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+// Count of one bucket of one series
+@Value
+public class TimeSeriesRow {
+    LocalDateTime bucketStart;
+    String key;
+    long count;
+}
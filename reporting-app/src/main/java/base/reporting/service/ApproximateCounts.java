@@ -0,0 +1,21 @@
+package mch.reporting.service;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+// Requests sent with approx=true carry this flag in their Reactor context, counts then come from planner estimates
+public final class ApproximateCounts {
+
+    private static final String KEY = ApproximateCounts.class.getName();
+
+    private ApproximateCounts() {
+    }
+
+    public static Context enable(Context context) {
+        return context.put(KEY, Boolean.TRUE);
+    }
+
+    public static boolean requested(ContextView context) {
+        return context.getOrDefault(KEY, Boolean.FALSE);
+    }
+}
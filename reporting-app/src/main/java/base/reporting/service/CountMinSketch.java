@@ -0,0 +1,36 @@
+package mch.reporting.service;
+
+// Frequency estimate that never undercounts, overcounts by at most e * total / width with probability 1 - e^-depth; not thread-safe
+final class CountMinSketch {
+
+    private final int width;
+    private final long[][] counts;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth and width must be positive");
+        }
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    void add(long hash) {
+        for (int row = 0; row < counts.length; row++) {
+            counts[row][bucket(hash, row)]++;
+        }
+    }
+
+    long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            estimate = Math.min(estimate, counts[row][bucket(hash, row)]);
+        }
+        return estimate;
+    }
+
+    // One row per derived hash h1 + row * h2, the usual double hashing
+    private int bucket(long hash, int row) {
+        int combined = (int) hash + (row + 1) * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
@@ -0,0 +1,99 @@
+package mch.reporting.service;
+
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import mch.reporting.repository.projection.DailyChannelStatisticRow;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Statistic counters of the last days, one slot per day reused as the window slides; not thread-safe
+final class DailyCounterRing {
+
+    private final int days;
+    private final String[] channels;
+    private final Map<String, Integer> channelIndexes = new HashMap<>();
+    private final LocalDate[] slotDays;
+    private final long[] totals;
+    private final long[] errors;
+    private final long[] successes;
+    private final long[][] channelTotals;
+    private LocalDate lastDay;
+
+    DailyCounterRing(int days, List<String> channels) {
+        this.days = days;
+        this.channels = new String[channels.size()];
+        for (int i = 0; i < channels.size(); i++) {
+            this.channels[i] = channels.get(i).toLowerCase(Locale.ROOT);
+            channelIndexes.put(this.channels[i], i);
+        }
+        this.slotDays = new LocalDate[days];
+        this.totals = new long[days];
+        this.errors = new long[days];
+        this.successes = new long[days];
+        this.channelTotals = new long[days][channels.size()];
+    }
+
+    // Days older than the window are ignored, a newer day moves the window forward
+    void add(LocalDate day, String channel, long total, long errorCount, long successCount) {
+        if (lastDay == null || day.isAfter(lastDay)) {
+            lastDay = day;
+        } else if (!inWindow(day)) {
+            return;
+        }
+        int slot = Math.floorMod(day.toEpochDay(), days);
+        if (!day.equals(slotDays[slot])) {
+            slotDays[slot] = day;
+            totals[slot] = 0;
+            errors[slot] = 0;
+            successes[slot] = 0;
+            Arrays.fill(channelTotals[slot], 0);
+        }
+        totals[slot] += total;
+        errors[slot] += errorCount;
+        successes[slot] += successCount;
+        Integer channelIndex = channel != null ? channelIndexes.get(channel.toLowerCase(Locale.ROOT)) : null;
+        if (channelIndex != null) {
+            channelTotals[slot][channelIndex] += total;
+        }
+    }
+
+    LocalDate getLastDay() {
+        return lastDay;
+    }
+
+    // The window summed into per-channel rows, rows of unconfigured channels only count towards the totals
+    List<ChannelStatisticProjection> rows() {
+        long total = 0;
+        long errorCount = 0;
+        long successCount = 0;
+        long[] channelCounts = new long[channels.length];
+        for (int slot = 0; slot < days; slot++) {
+            if (slotDays[slot] == null || !inWindow(slotDays[slot])) {
+                continue;
+            }
+            total += totals[slot];
+            errorCount += errors[slot];
+            successCount += successes[slot];
+            for (int i = 0; i < channels.length; i++) {
+                channelCounts[i] += channelTotals[slot][i];
+            }
+        }
+        List<ChannelStatisticProjection> rows = new ArrayList<>(channels.length + 1);
+        long otherCount = total;
+        for (int i = 0; i < channels.length; i++) {
+            rows.add(new DailyChannelStatisticRow(lastDay, channels[i], channelCounts[i], 0L, 0L));
+            otherCount -= channelCounts[i];
+        }
+        rows.add(new DailyChannelStatisticRow(lastDay, null, otherCount, errorCount, successCount));
+        return rows;
+    }
+
+    private boolean inWindow(LocalDate day) {
+        return lastDay != null && !day.isAfter(lastDay) && day.isAfter(lastDay.minusDays(days));
+    }
+}
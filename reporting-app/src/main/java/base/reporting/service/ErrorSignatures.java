@@ -0,0 +1,30 @@
+package mch.reporting.service;
+
+import java.util.regex.Pattern;
+
+// Java twin of test_support.report_event_error_signature(), used where rows are seen in the application
+public final class ErrorSignatures {
+
+    public static final int MAX_LENGTH = 500;
+
+    private static final Pattern UUID = Pattern.compile("[0-9A-Fa-f]{8}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{12}");
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[+-]\\d{2}:?\\d{2})?");
+    private static final Pattern HEX = Pattern.compile("\\b(0x[0-9A-Fa-f]+|(?=[0-9A-Fa-f]*\\d)(?=[0-9A-Fa-f]*[A-Fa-f])[0-9A-Fa-f]{8,})\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d{4,}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ErrorSignatures() {
+    }
+
+    public static String normalise(String errorBody) {
+        if (errorBody == null) {
+            return null;
+        }
+        String signature = UUID.matcher(errorBody).replaceAll("<uuid>");
+        signature = TIMESTAMP.matcher(signature).replaceAll("<ts>");
+        signature = HEX.matcher(signature).replaceAll("<hex>");
+        signature = NUMBER.matcher(signature).replaceAll("<n>");
+        signature = WHITESPACE.matcher(signature).replaceAll(" ").strip();
+        return signature.length() > MAX_LENGTH ? signature.substring(0, MAX_LENGTH) : signature;
+    }
+}
@@ -0,0 +1,137 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.repository.ReportField;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.projection.DailyChannelStatisticRow;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Last week statistics held in memory, loaded once and then advanced with the rows above an id watermark
+@Slf4j
+@Component
+public class LiveStatistics {
+
+    public static final int LAST_WEEK_DAYS = 7;
+    // What apply reads, payloads never leave the database
+    private static final Set<ReportField> FIELDS = EnumSet.of(ReportField.ID, ReportField.CHANNEL_NAME, ReportField.ERROR_BODY, ReportField.CREATED_AT);
+
+    private final ReportingProperties reportingProperties;
+    private final ReportRepository reportRepository;
+    private final ReportJdbcRepository reportJdbcRepository;
+    private final StatisticsAggregator statisticsAggregator;
+    private final Counter reconcileMismatches;
+    private final AtomicLong lastId = new AtomicLong(-1);
+    private DailyCounterRing ring;
+    private volatile StatisticResponse lastWeek;
+
+    public LiveStatistics(ReportingProperties reportingProperties, ReportRepository reportRepository,
+                          ReportJdbcRepository reportJdbcRepository, StatisticsAggregator statisticsAggregator, MeterRegistry meterRegistry) {
+        this.reportingProperties = reportingProperties;
+        this.reportRepository = reportRepository;
+        this.reportJdbcRepository = reportJdbcRepository;
+        this.statisticsAggregator = statisticsAggregator;
+        this.reconcileMismatches = Counter.builder("reporting.live.reconcile.mismatches")
+                .description("Reconciliations that found the in-memory counters off")
+                .register(meterRegistry);
+        Gauge.builder("reporting.live.watermark", lastId, AtomicLong::get)
+                .description("Highest report_event id applied to the in-memory counters")
+                .register(meterRegistry);
+    }
+
+    // Null until the first load completed, callers then fall back to SQL
+    public StatisticResponse lastWeek() {
+        return reportingProperties.getLive().isEnabled() ? lastWeek : null;
+    }
+
+    // The first run loads the window, later runs only read rows above the watermark
+    @Scheduled(fixedDelayString = "${reporting.live.poll-interval:PT1S}")
+    public synchronized void poll() {
+        if (!reportingProperties.getLive().isEnabled()) {
+            return;
+        }
+        if (ring == null) {
+            load(reportRepository.findMaxId().orElse(0L));
+            return;
+        }
+        int batchSize = reportingProperties.getLive().getBatchSize();
+        boolean changed = false;
+        List<ReportEntity> rows;
+        do {
+            rows = reportJdbcRepository.findAfterId(lastId.get(), batchSize, FIELDS);
+            for (ReportEntity row : rows) {
+                apply(row);
+                lastId.set(row.getId());
+            }
+            changed |= !rows.isEmpty();
+        } while (rows.size() == batchSize);
+        if (changed) {
+            lastWeek = snapshot();
+        }
+    }
+
+    // Rebuilds the counters from SQL up to the current watermark and reports any drift
+    @Scheduled(fixedDelayString = "${reporting.live.reconcile-interval:PT10M}", initialDelayString = "${reporting.live.reconcile-interval:PT10M}")
+    public synchronized void reconcile() {
+        if (!reportingProperties.getLive().isEnabled() || ring == null) {
+            return;
+        }
+        StatisticResponse previous = lastWeek;
+        load(lastId.get());
+        if (!Objects.equals(lastWeek, previous)) {
+            reconcileMismatches.increment();
+            log.warn("Live statistics drifted from report_event, replaced {} with {}", previous, lastWeek);
+        }
+    }
+
+    private void load(long maxId) {
+        DailyCounterRing loaded = new DailyCounterRing(LAST_WEEK_DAYS, new ArrayList<>(reportingProperties.getStatistics().getChannels().values()));
+        LocalDateTime lastCreatedAt = reportRepository.findLastCreatedAt().orElse(null);
+        if (lastCreatedAt != null) {
+            LocalDate lastDay = lastCreatedAt.toLocalDate();
+            List<DailyChannelStatisticRow> rows = reportJdbcRepository.countStatisticsByDayAndChannel(
+                    lastDay.minusDays(LAST_WEEK_DAYS - 1).atStartOfDay(), lastDay.atTime(23, 59, 59), maxId);
+            for (DailyChannelStatisticRow row : rows) {
+                loaded.add(row.getDay(), row.getChannelName(), row.getTotalCount(), row.getErrorCount(), row.getSuccessCount());
+            }
+        }
+        ring = loaded;
+        lastId.set(maxId);
+        lastWeek = snapshot();
+        log.debug("Loaded live statistics up to report_event id {}", maxId);
+    }
+
+    // An empty table has no last week, like the SQL path
+    private StatisticResponse snapshot() {
+        return ring.getLastDay() != null ? statisticsAggregator.aggregate(ring.rows()) : null;
+    }
+
+    // Classifies the row the way the statistics query does
+    private void apply(ReportEntity row) {
+        if (row.getCreatedAt() == null) {
+            return;
+        }
+        ReportingProperties.Statistics statistics = reportingProperties.getStatistics();
+        String errorBody = row.getErrorBody();
+        boolean error = errorBody != null && errorBody.toLowerCase(Locale.ROOT).contains(statistics.getErrorMarker().toLowerCase(Locale.ROOT));
+        boolean success = statistics.getSuccessMarker().equals(errorBody);
+        ring.add(row.getCreatedAt().toLocalDate(), row.getChannelName(), 1, error ? 1 : 0, success ? 1 : 0);
+    }
+}
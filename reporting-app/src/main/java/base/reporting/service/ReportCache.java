@@ -0,0 +1,114 @@
+package mch.reporting.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// In-process cache of the table-wide values, dropped on TTL or as soon as max(id) or the delete and update counters move.
+// Those counters are flushed by Postgres with a short delay, the TTL bounds what they miss.
+@Slf4j
+@Component
+public class ReportCache {
+
+    private static final String SINGLE_KEY = "all";
+
+    private final ReportingProperties.Cache properties;
+    private final ReportRepository reportRepository;
+    private final QueryExecutor queryExecutor;
+    private final AsyncCache<String, Long> totalCountCache;
+    private final AsyncCache<String, LocalDate> lastReportDateCache;
+    private final AsyncCache<String, StatisticResponse> statisticsCache;
+    private final Counter watermarkInvalidations;
+    private final AtomicLong lastSeenMaxId = new AtomicLong(-1);
+    private final AtomicLong lastSeenChangedRows = new AtomicLong(-1);
+    private final AtomicLong nextWatermarkCheck = new AtomicLong(System.nanoTime());
+
+    public ReportCache(ReportingProperties reportingProperties, ReportRepository reportRepository,
+                       QueryExecutor queryExecutor, MeterRegistry meterRegistry) {
+        this.properties = reportingProperties.getCache();
+        this.reportRepository = reportRepository;
+        this.queryExecutor = queryExecutor;
+        this.totalCountCache = build(properties.getTtl(), 1, meterRegistry, "reporting.total-count");
+        this.lastReportDateCache = build(properties.getTtl(), 1, meterRegistry, "reporting.last-report-date");
+        this.statisticsCache = build(properties.getStatisticsTtl(), properties.getStatisticsMaxSize(), meterRegistry, "reporting.statistics");
+        this.watermarkInvalidations = Counter.builder("reporting.cache.watermark.invalidations")
+                .description("Cache flushes caused by new, deleted or updated report_event rows")
+                .register(meterRegistry);
+    }
+
+    public Mono<Long> totalCount(Supplier<Mono<Long>> loader) {
+        return get(totalCountCache, SINGLE_KEY, loader);
+    }
+
+    public Mono<LocalDate> lastReportDate(Supplier<Mono<LocalDate>> loader) {
+        return get(lastReportDateCache, SINGLE_KEY, loader);
+    }
+
+    public Mono<StatisticResponse> statistics(LocalDateTime start, LocalDateTime end, Supplier<Mono<StatisticResponse>> loader) {
+        return get(statisticsCache, start + "|" + end, loader);
+    }
+
+    public void invalidateAll() {
+        totalCountCache.synchronous().invalidateAll();
+        lastReportDateCache.synchronous().invalidateAll();
+        statisticsCache.synchronous().invalidateAll();
+    }
+
+    // Concurrent misses on the same key share one load
+    private <V> Mono<V> get(AsyncCache<String, V> cache, String key, Supplier<Mono<V>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        return checkWatermark()
+                .then(Mono.defer(() -> Mono.fromFuture(cache.get(key, (k, executor) -> loader.get().toFuture()), true)));
+    }
+
+    // At most one max(id) lookup per interval, the other callers keep using the cached values meanwhile
+    private Mono<Void> checkWatermark() {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            long next = nextWatermarkCheck.get();
+            if (now - next < 0 || !nextWatermarkCheck.compareAndSet(next, now + properties.getWatermarkCheckInterval().toNanos())) {
+                return Mono.empty();
+            }
+            return Mono.zip(
+                            queryExecutor.optional("ReportRepository.findMaxId", reportRepository::findMaxId).defaultIfEmpty(0L),
+                            queryExecutor.mono("ReportRepository.countChangedRows", reportRepository::countChangedRows))
+                    .doOnNext(watermark -> {
+                        long previousMaxId = lastSeenMaxId.getAndSet(watermark.getT1());
+                        long previousChangedRows = lastSeenChangedRows.getAndSet(watermark.getT2());
+                        if (previousMaxId != -1 && (previousMaxId != watermark.getT1() || previousChangedRows != watermark.getT2())) {
+                            log.debug("report_event moved to max(id) {} with {} deleted or updated rows, flushing caches", watermark.getT1(), watermark.getT2());
+                            watermarkInvalidations.increment();
+                            invalidateAll();
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    private static <V> AsyncCache<String, V> build(Duration ttl, long maximumSize, MeterRegistry meterRegistry, String name) {
+        AsyncCache<String, V> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), name);
+        return cache;
+    }
+}
@@ -0,0 +1,18 @@
+package mch.reporting.service;
+
+import lombok.Value;
+
+// A count and whether it came from a planner estimate, so responses only claim an estimate that was actually used
+@Value
+class ReportCount {
+    long value;
+    boolean estimated;
+
+    static ReportCount exact(long value) {
+        return new ReportCount(value, false);
+    }
+
+    static ReportCount estimate(long value) {
+        return new ReportCount(value, true);
+    }
+}
@@ -0,0 +1,83 @@
+package mch.reporting.service;
+
+import mch.reporting.entity.ReportEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// Incremental gzip-compressed CSV encoder, only the compressed bytes of the current chunk are kept in memory
+public class ReportCsvEncoder {
+
+    public static final String HEADER = "id,channel_name,created_at,error_body,event_payload\n";
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private final Writer writer;
+    private long rowCount;
+
+    public ReportCsvEncoder() {
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(buffer, 64 * 1024);
+            this.writer = new OutputStreamWriter(gzip, StandardCharsets.UTF_8);
+            writer.write(HEADER);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns the compressed bytes produced so far, possibly none
+    public byte[] encode(List<ReportEntity> reports) {
+        try {
+            for (ReportEntity report : reports) {
+                writer.write(String.valueOf(report.getId()));
+                writer.write(',');
+                writeQuoted(report.getChannelName());
+                writer.write(',');
+                writer.write(report.getCreatedAt() != null ? report.getCreatedAt().toString() : "");
+                writer.write(',');
+                writeQuoted(report.getErrorBody());
+                writer.write(',');
+                writeQuoted(report.getEventPayload());
+                writer.write('\n');
+                rowCount++;
+            }
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Writes the gzip trailer and returns the remaining bytes
+    public byte[] finish() {
+        try {
+            writer.close();
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private byte[] drain() {
+        byte[] bytes = buffer.toByteArray();
+        buffer.reset();
+        return bytes;
+    }
+}
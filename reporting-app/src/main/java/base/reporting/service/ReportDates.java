@@ -0,0 +1,24 @@
+package mch.reporting.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Parses the ISO dates received by the endpoints into inclusive day boundaries
+public final class ReportDates {
+
+    private ReportDates() {
+    }
+
+    public static LocalDate parse(String date) {
+        return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    public static LocalDateTime startOfDay(String date) {
+        return parse(date).atStartOfDay();
+    }
+
+    public static LocalDateTime endOfDay(String date) {
+        return parse(date).atTime(23, 59, 59);
+    }
+}
@@ -0,0 +1,257 @@
+package mch.reporting.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ExportJob;
+import mch.reporting.repository.ReportCriteria;
+import mch.reporting.repository.ReportJdbcRepository;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+// Exports report_event as gzip-compressed CSV, straight from a database cursor.
+// Downloads and background jobs share a concurrency limit, finished jobs and their files expire after the retention.
+@Slf4j
+@Service
+public class ReportExportService {
+
+    private static final String FILE_PREFIX = "report_event_";
+    private static final String FILE_SUFFIX = ".csv.gz";
+
+    private final ReportJdbcRepository reportJdbcRepository;
+    private final ReportingProperties reportingProperties;
+    private final Cache<String, ExportJob> jobs;
+    private final AtomicInteger runningExports = new AtomicInteger();
+
+    public ReportExportService(ReportJdbcRepository reportJdbcRepository, ReportingProperties reportingProperties) {
+        this.reportJdbcRepository = reportJdbcRepository;
+        this.reportingProperties = reportingProperties;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfter(retention(reportingProperties.getExport().getJobRetention()))
+                .scheduler(Scheduler.systemScheduler())
+                .<String, ExportJob>removalListener((id, job, cause) -> {
+                    if (job != null && cause.wasEvicted()) {
+                        delete(Path.of(job.getFile()));
+                    }
+                })
+                .build();
+    }
+
+    // Compressed chunks as they are produced, for a streamed HTTP download
+    public Flux<byte[]> exportCsvGzip(ReportCriteria criteria) {
+        return exportCsvGzip(criteria, rows -> {
+        });
+    }
+
+    // Counts against the export limit while subscribed, a rejection is the first signal so it still becomes a 503
+    public Flux<DataBuffer> exportCsvGzipBuffers(ReportCriteria criteria) {
+        return Flux.defer(() -> {
+            acquire();
+            return exportCsvGzip(criteria)
+                    .map(DefaultDataBufferFactory.sharedInstance::wrap)
+                    .doFinally(signal -> runningExports.decrementAndGet());
+        });
+    }
+
+    private Flux<byte[]> exportCsvGzip(ReportCriteria criteria, IntConsumer rowsEncoded) {
+        ReportingProperties.Export export = reportingProperties.getExport();
+        return Flux.defer(() -> {
+            ReportCsvEncoder encoder = new ReportCsvEncoder();
+            return reportJdbcRepository.stream(criteria, export.getFetchSize())
+                    .buffer(export.getRowsPerChunk())
+                    .map(rows -> {
+                        byte[] bytes = encoder.encode(rows);
+                        rowsEncoded.accept(rows.size());
+                        return bytes;
+                    })
+                    .concatWith(Mono.fromCallable(encoder::finish))
+                    .filter(bytes -> bytes.length > 0);
+        });
+    }
+
+    // Writes the export to the export directory in the background, the returned job is updated as it runs
+    public ExportJob startExportJob(ReportCriteria criteria) {
+        acquire();
+        String id = UUID.randomUUID().toString();
+        Path directory = Path.of(reportingProperties.getExport().getDirectory());
+        Path target = directory.resolve(FILE_PREFIX + id + FILE_SUFFIX);
+        ExportJob job = ExportJob.builder()
+                .id(id)
+                .status(ExportJob.Status.RUNNING)
+                .file(target.toString())
+                .startedAt(LocalDateTime.now())
+                .build();
+        jobs.put(id, job);
+
+        writeCsvGzip(criteria, target,
+                rows -> {
+                    synchronized (job) {
+                        job.setRowCount(job.getRowCount() + rows);
+                    }
+                },
+                bytes -> {
+                    synchronized (job) {
+                        job.setByteCount(job.getByteCount() + bytes);
+                    }
+                })
+                .doFinally(signal -> runningExports.decrementAndGet())
+                .subscribe(
+                        path -> finish(job, ExportJob.Status.COMPLETED, null),
+                        error -> {
+                            log.error("Export job {} failed", id, error);
+                            finish(job, ExportJob.Status.FAILED, error.getMessage());
+                        });
+        return job;
+    }
+
+    // Writes the export to the given file, which only appears once complete
+    public Mono<Path> writeCsvGzip(ReportCriteria criteria, Path target) {
+        return writeCsvGzip(criteria, target, rows -> {
+        }, bytes -> {
+        });
+    }
+
+    private Mono<Path> writeCsvGzip(ReportCriteria criteria, Path target, IntConsumer rowsWritten, LongConsumer bytesWritten) {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        return Flux.using(
+                        () -> {
+                            Files.createDirectories(target.getParent());
+                            return FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                        },
+                        channel -> exportCsvGzip(criteria, rowsWritten).doOnNext(bytes -> {
+                            write(channel, bytes);
+                            bytesWritten.accept(bytes.length);
+                        }),
+                        channel -> {
+                            try {
+                                channel.close();
+                            } catch (IOException e) {
+                                log.warn("Could not close export file {}", partial, e);
+                            }
+                        })
+                .then(Mono.fromCallable(() -> Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE)))
+                .doOnError(error -> delete(partial));
+    }
+
+    public Mono<ExportJob> getExportJob(String id) {
+        return Mono.justOrEmpty(jobs.getIfPresent(id));
+    }
+
+    // Completed files of jobs from before a restart are unknown to the registry, they go once older than the retention.
+    // Partial files are left alone, they belong to running jobs or are removed when their write fails
+    @Scheduled(fixedDelayString = "${reporting.export.cleanup-interval:PT10M}")
+    public void deleteExpiredFiles() {
+        Path directory = Path.of(reportingProperties.getExport().getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(reportingProperties.getExport().getJobRetention()));
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> isUnknownExport(file.getFileName().toString()))
+                    .filter(file -> isOlderThan(file, cutoff))
+                    .forEach(ReportExportService::delete);
+        } catch (IOException e) {
+            log.warn("Could not list export directory {}", directory, e);
+        }
+    }
+
+    private void acquire() {
+        int limit = reportingProperties.getExport().getMaxConcurrentExports();
+        if (runningExports.incrementAndGet() > limit) {
+            runningExports.decrementAndGet();
+            throw new RejectedExecutionException("At most " + limit + " exports run at a time, retry later");
+        }
+    }
+
+    private void finish(ExportJob job, ExportJob.Status status, String error) {
+        synchronized (job) {
+            job.setStatus(status);
+            job.setError(error);
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        // Written again so the retention starts now
+        jobs.put(job.getId(), job);
+        log.info("Export job {} {} after {} bytes", job.getId(), status, job.getByteCount());
+    }
+
+    // Running jobs never expire, finished ones are kept for the retention
+    private static Expiry<String, ExportJob> retention(Duration retention) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String id, ExportJob job, long currentTime) {
+                return job.getStatus() == ExportJob.Status.RUNNING ? Long.MAX_VALUE : retention.toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String id, ExportJob job, long currentTime, long currentDuration) {
+                return expireAfterCreate(id, job, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String id, ExportJob job, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private boolean isUnknownExport(String fileName) {
+        if (!fileName.startsWith(FILE_PREFIX) || !fileName.endsWith(FILE_SUFFIX)) {
+            return false;
+        }
+        String id = fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length());
+        return jobs.getIfPresent(id) == null;
+    }
+
+    private static boolean isOlderThan(Path file, FileTime cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(cutoff) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) {
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
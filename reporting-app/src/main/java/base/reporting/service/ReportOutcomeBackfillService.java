@@ -0,0 +1,63 @@
+package mch.reporting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportRollupWatermarkEntity;
+import mch.reporting.repository.OutcomeClassifier;
+import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.ReportRollupWatermarkRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Classifies the report_event rows older than the classify trigger, one id batch per transaction
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReportOutcomeBackfillService {
+
+    public static final String WATERMARK = "outcome-backfill";
+
+    private final ReportRepository reportRepository;
+    private final ReportRollupWatermarkRepository reportRollupWatermarkRepository;
+    private final OutcomeClassifier outcomeClassifier;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportingProperties reportingProperties;
+
+    // Queries switch to the outcome column once every row up to max(id) has been classified
+    @Scheduled(fixedDelayString = "${reporting.outcome.backfill-interval:PT10S}")
+    public void backfill() {
+        ReportingProperties.Outcome outcome = reportingProperties.getOutcome();
+        if (!outcome.isColumnEnabled() || outcomeClassifier.isColumnReady()) {
+            return;
+        }
+        Long maxId = reportRepository.findMaxId().orElse(0L);
+        int batches = 0;
+        boolean remaining = true;
+        while (remaining && batches++ < outcome.getMaxBatchesPerRun()) {
+            remaining = Boolean.TRUE.equals(transactionTemplate.execute(status -> backfillNextBatch(maxId)));
+        }
+        if (!remaining) {
+            outcomeClassifier.setBackfilled(true);
+            log.info("report_event outcomes backfilled up to id {}, reading the outcome column from now on", maxId);
+        }
+    }
+
+    // Returns whether rows up to maxId remain to be classified
+    private boolean backfillNextBatch(long maxId) {
+        ReportRollupWatermarkEntity watermark = reportRollupWatermarkRepository.findById(WATERMARK)
+                .orElseGet(() -> new ReportRollupWatermarkEntity(WATERMARK, 0L, null));
+        if (watermark.getLastId() >= maxId) {
+            return false;
+        }
+        long fromId = watermark.getLastId();
+        long toId = Math.min(fromId + reportingProperties.getOutcome().getBackfillBatchSize(), maxId);
+
+        int classified = reportRepository.classifyOutcomesBetweenIds(fromId, toId);
+        log.debug("Classified {} report_event rows in ({}, {}]", classified, fromId, toId);
+        watermark.setLastId(toId);
+        reportRollupWatermarkRepository.save(watermark);
+        return toId < maxId;
+    }
+}
@@ -0,0 +1,248 @@
+package mch.reporting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.repository.ReportCriteria;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Monthly range partitions of report_event: converts the table once, creates months ahead and retires expired ones
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReportPartitionManager {
+
+    private static final String SCHEMA = "test_support";
+    private static final String PARENT = "report_event";
+    private static final String LEGACY = "report_event_legacy";
+    private static final String DEFAULT = "report_event_default";
+    private static final String ID_SEQUENCE = "test_support.report_event_id_seq";
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("'_y'yyyy'm'MM");
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\((?:MINVALUE|'([^']+)')\\) TO \\('([^']+)'\\)");
+
+    // Indexes of the migrations, declared on the parent so each partition gets them, existing legacy ones are attached as they are
+    private static final List<String> INDEXES = List.of(
+            "create index if not exists report_event_p_id_idx on test_support.report_event (id)",
+            "create index if not exists report_event_p_created_at_id_idx on test_support.report_event (created_at, id)",
+            "create index if not exists report_event_p_channel_created_at_id_idx on test_support.report_event (lower(channel_name), created_at, id)",
+            "create index if not exists report_event_p_error_body_trgm_idx on test_support.report_event using gin (error_body public.gin_trgm_ops)",
+            "create index if not exists report_event_p_event_payload_trgm_idx on test_support.report_event using gin (event_payload public.gin_trgm_ops)",
+            "create index if not exists report_event_p_outcome_created_at_idx on test_support.report_event (outcome, created_at, id) include (channel_name)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportExportService reportExportService;
+    private final ReportCache reportCache;
+    private final ReportingProperties reportingProperties;
+
+    @Scheduled(fixedDelayString = "${reporting.partitioning.interval:PT1H}")
+    public void maintain() {
+        if (!reportingProperties.getPartitioning().isEnabled()) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now();
+        if (!isPartitioned()) {
+            // Past the months created ahead, so rows dated a little into the future still fit the legacy bound
+            convert(currentMonth.plusMonths(reportingProperties.getPartitioning().getMonthsAhead() + 1L));
+        }
+        createAhead(currentMonth);
+        applyRetention(currentMonth);
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList("select c.relkind::text from pg_class c join pg_namespace n on n.oid = c.relnamespace " +
+                "where n.nspname = ? and c.relname = ?", String.class, SCHEMA, PARENT);
+        return kinds.contains("p");
+    }
+
+    // The existing table becomes the partition of every row before the cutover, new rows go to monthly partitions.
+    // Rows without created_at, or past every monthly partition, land in the default partition.
+    private void convert(YearMonth cutoverMonth) {
+        String cutover = timestamp(cutoverMonth.atDay(1).atStartOfDay());
+        log.warn("Converting {}.{} into a partitioned table, rows before {} stay in {}", SCHEMA, PARENT, cutover, LEGACY);
+
+        // Validated while writes continue, so the attach below needs no scan under its exclusive lock.
+        // Until the conversion commits, inserts without created_at or dated past the cutover are rejected.
+        jdbcTemplate.execute("alter table test_support.report_event drop constraint if exists report_event_legacy_bound");
+        jdbcTemplate.execute("alter table test_support.report_event add constraint report_event_legacy_bound " +
+                "check (created_at is not null and created_at < '" + cutover + "') not valid");
+        try {
+            jdbcTemplate.execute("alter table test_support.report_event validate constraint report_event_legacy_bound");
+        } catch (RuntimeException e) {
+            // Existing rows break the bound, producers must not keep hitting the constraint
+            jdbcTemplate.execute("alter table test_support.report_event drop constraint if exists report_event_legacy_bound");
+            throw new IllegalStateException("report_event has rows without created_at or past " + cutover + ", not converted", e);
+        }
+        // A plain index on id for the parent to attach, the primary key index cannot be shared
+        jdbcTemplate.execute("create index concurrently if not exists report_event_id_idx on test_support.report_event (id)");
+
+        List<Map<String, Object>> grants = jdbcTemplate.queryForList("select grantee, privilege_type from information_schema.role_table_grants " +
+                "where table_schema = ? and table_name = ? and grantee <> current_user", SCHEMA, PARENT);
+        List<String> identity = jdbcTemplate.queryForList("select is_identity from information_schema.columns " +
+                "where table_schema = ? and table_name = ? and column_name = 'id'", String.class, SCHEMA, PARENT);
+        boolean identityId = identity.contains("YES");
+        // Serial sequences are found for identity columns as well
+        List<String> sequences = jdbcTemplate.queryForList("select pg_get_serial_sequence('test_support.report_event', 'id')", String.class);
+        String serialSequence = sequences.isEmpty() ? null : sequences.get(0);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("lock table test_support.report_event in access exclusive mode");
+            jdbcTemplate.execute("alter table test_support.report_event rename to " + LEGACY);
+            if (identityId) {
+                // A partition cannot keep an identity column and its sequence would go with the legacy table,
+                // ids continue from a sequence owned by the parent instead. The identity sequence has the same name,
+                // so it is dropped first
+                jdbcTemplate.execute("alter table test_support." + LEGACY + " alter column id drop identity if exists");
+                jdbcTemplate.execute("create sequence if not exists " + ID_SEQUENCE);
+                jdbcTemplate.execute("select setval('" + ID_SEQUENCE + "', coalesce((select max(id) from test_support." + LEGACY + "), 0) + 1, false)");
+            }
+            jdbcTemplate.execute("create table test_support.report_event (like test_support." + LEGACY + " including defaults including storage) " +
+                    "partition by range (created_at)");
+            if (identityId) {
+                jdbcTemplate.execute("alter table test_support.report_event alter column id set default nextval('" + ID_SEQUENCE + "')");
+                jdbcTemplate.execute("alter sequence " + ID_SEQUENCE + " owned by test_support.report_event.id");
+            } else if (serialSequence != null) {
+                // The copied default keeps using the serial sequence, which must outlive a later drop of the legacy partition
+                jdbcTemplate.execute("alter sequence " + serialSequence + " owned by test_support.report_event.id");
+            }
+            jdbcTemplate.execute("alter table test_support.report_event attach partition test_support." + LEGACY +
+                    " for values from (minvalue) to ('" + cutover + "')");
+            jdbcTemplate.execute("create table test_support." + DEFAULT + " partition of test_support.report_event default");
+            INDEXES.forEach(jdbcTemplate::execute);
+            jdbcTemplate.execute("drop trigger if exists report_event_classify on test_support." + LEGACY);
+            jdbcTemplate.execute("create trigger report_event_classify before insert or update of error_body on test_support.report_event " +
+                    "for each row execute function test_support.report_event_classify()");
+            for (Map<String, Object> grant : grants) {
+                jdbcTemplate.execute("grant " + grant.get("privilege_type") + " on test_support.report_event to " + role((String) grant.get("grantee")));
+            }
+        });
+        log.info("{}.{} is now partitioned by month from {}", SCHEMA, PARENT, cutover);
+    }
+
+    private void createAhead(YearMonth currentMonth) {
+        List<Partition> partitions = partitions();
+        for (int i = 0; i <= reportingProperties.getPartitioning().getMonthsAhead(); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (partitions.stream().anyMatch(partition -> partition.overlaps(from, to))) {
+                continue;
+            }
+            String name = PARENT + month.format(MONTH_SUFFIX);
+            String bound = "for values from ('" + timestamp(from) + "') to ('" + timestamp(to) + "')";
+            String range = "created_at >= '" + timestamp(from) + "' and created_at < '" + timestamp(to) + "'";
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean defaultHasRows = jdbcTemplate.queryForObject(
+                        "select exists (select 1 from test_support." + DEFAULT + " where " + range + ")", Boolean.class);
+                if (Boolean.TRUE.equals(defaultHasRows)) {
+                    // Rows that arrived before their month existed move out of the default partition, or the attach would fail
+                    jdbcTemplate.execute("create table test_support." + name + " (like test_support.report_event including defaults including storage)");
+                    jdbcTemplate.execute("insert into test_support." + name + " select * from test_support." + DEFAULT + " where " + range);
+                    jdbcTemplate.execute("delete from test_support." + DEFAULT + " where " + range);
+                    jdbcTemplate.execute("alter table test_support.report_event attach partition test_support." + name + " " + bound);
+                } else {
+                    jdbcTemplate.execute("create table test_support." + name + " partition of test_support.report_event " + bound);
+                }
+            });
+            log.info("Created partition {}.{}", SCHEMA, name);
+        }
+    }
+
+    // Partitions wholly older than the retention are archived if asked, then detached and possibly dropped
+    private void applyRetention(YearMonth currentMonth) {
+        ReportingProperties.Partitioning partitioning = reportingProperties.getPartitioning();
+        if (partitioning.getRetentionMonths() <= 0) {
+            return;
+        }
+        LocalDateTime boundary = currentMonth.minusMonths(partitioning.getRetentionMonths()).atDay(1).atStartOfDay();
+        for (Partition partition : partitions()) {
+            if (partition.getTo().isAfter(boundary)) {
+                continue;
+            }
+            if (partitioning.isArchive()) {
+                archive(partition);
+            }
+            jdbcTemplate.execute("alter table test_support.report_event detach partition test_support." + partition.getName());
+            if (partitioning.getRetentionAction() == ReportingProperties.RetentionAction.DROP) {
+                jdbcTemplate.execute("drop table test_support." + partition.getName());
+            }
+            reportCache.invalidateAll();
+            log.info("Retired partition {}.{} ({}) holding rows before {}", SCHEMA, partition.getName(), partitioning.getRetentionAction(), partition.getTo());
+        }
+    }
+
+    private void archive(Partition partition) {
+        Path target = Path.of(reportingProperties.getPartitioning().getArchiveDirectory()).resolve(partition.getName() + ".csv.gz");
+        if (Files.exists(target)) {
+            return;
+        }
+        ReportCriteria criteria = ReportCriteria.builder()
+                .start(partition.getFrom())
+                // Upper bounds are exclusive, criteria ends are inclusive
+                .end(partition.getTo().minusNanos(1000))
+                .build();
+        reportExportService.writeCsvGzip(criteria, target).block();
+        log.info("Archived partition {}.{} to {}", SCHEMA, partition.getName(), target);
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query("select c.relname, pg_get_expr(c.relpartbound, c.oid) as bound from pg_inherits i " +
+                        "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent " +
+                        "join pg_namespace n on n.oid = p.relnamespace where n.nspname = ? and p.relname = ?",
+                        (resultSet, rowNum) -> partition(resultSet.getString("relname"), resultSet.getString("bound")), SCHEMA, PARENT)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Null for the default partition, which has no range and is never retired
+    static Partition partition(String name, String bound) {
+        if ("DEFAULT".equals(bound)) {
+            return null;
+        }
+        Matcher matcher = BOUNDS.matcher(bound);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected partition bound " + bound);
+        }
+        return new Partition(name, matcher.group(1) != null ? parse(matcher.group(1)) : null, parse(matcher.group(2)));
+    }
+
+    private static String timestamp(LocalDateTime value) {
+        return value.format(DateTimeFormatter.ISO_LOCAL_DATE) + " " + value.format(DateTimeFormatter.ISO_LOCAL_TIME);
+    }
+
+    private static LocalDateTime parse(String value) {
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    private static String role(String grantee) {
+        return "PUBLIC".equals(grantee) ? grantee : "\"" + grantee.replace("\"", "\"\"") + "\"";
+    }
+
+    // A null from is the MINVALUE bound of the legacy partition
+    @Value
+    static class Partition {
+        String name;
+        LocalDateTime from;
+        LocalDateTime to;
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return (from == null || from.isBefore(end)) && to.isAfter(start);
+        }
+    }
+}
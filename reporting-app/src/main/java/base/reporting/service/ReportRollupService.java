@@ -0,0 +1,148 @@
+package mch.reporting.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportRollupWatermarkEntity;
+import mch.reporting.repository.OutcomeClassifier;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.ReportRollupRepository;
+import mch.reporting.repository.ReportRollupWatermarkRepository;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps report_event_daily_rollup up to date and answers statistics from it for completed days
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReportRollupService {
+
+    public static final String WATERMARK = "daily-rollup";
+
+    private final ReportRepository reportRepository;
+    private final ReportRollupRepository reportRollupRepository;
+    private final ReportRollupWatermarkRepository reportRollupWatermarkRepository;
+    private final QueryExecutor queryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final OutcomeClassifier outcomeClassifier;
+    private final ReportingProperties reportingProperties;
+
+    public boolean isEnabled() {
+        return reportingProperties.getRollup().isEnabled();
+    }
+
+    // Folds only the rows above the high-water mark, one id batch per transaction
+    @Scheduled(fixedDelayString = "${reporting.rollup.interval:PT1M}")
+    public void rollup() {
+        if (!isEnabled()) {
+            return;
+        }
+        Long maxId = reportRepository.findMaxId().orElse(null);
+        if (maxId == null) {
+            return;
+        }
+        int batches = 0;
+        while (batches++ < reportingProperties.getRollup().getMaxBatchesPerRun()
+                && Boolean.TRUE.equals(transactionTemplate.execute(status -> rollupNextBatch(maxId)))) {
+            log.debug("Rolled up report_event batch {}", batches);
+        }
+    }
+
+    // Returns whether rows up to maxId remain to be folded, false as well when another run holds the watermark
+    private boolean rollupNextBatch(long maxId) {
+        // The upsert adds counts, folding an id range twice would inflate the days for good
+        if (!reportRollupWatermarkRepository.tryLock(WATERMARK)) {
+            log.debug("Rollup watermark held by another run, skipping");
+            return false;
+        }
+        ReportRollupWatermarkEntity watermark = reportRollupWatermarkRepository.findById(WATERMARK)
+                .orElseGet(() -> new ReportRollupWatermarkEntity(WATERMARK, 0L, null));
+        if (watermark.getLastId() >= maxId) {
+            return false;
+        }
+        long fromId = watermark.getLastId();
+        long toId = Math.min(fromId + reportingProperties.getRollup().getBatchSize(), maxId);
+        ReportingProperties.Statistics statistics = reportingProperties.getStatistics();
+
+        reportRollupRepository.addCountsBetweenIds(statistics.getErrorMarker(), statistics.getSuccessMarker(), fromId, toId);
+        reportRepository.findLastCreatedAtBetweenIds(fromId, toId)
+                .filter(lastCreatedAt -> watermark.getLastCreatedAt() == null || lastCreatedAt.isAfter(watermark.getLastCreatedAt()))
+                .ifPresent(watermark::setLastCreatedAt);
+        watermark.setLastId(toId);
+        reportRollupWatermarkRepository.save(watermark);
+        return toId < maxId;
+    }
+
+    // Ids are not committed in order: a row committed after a higher id was folded sits below the watermark unfolded.
+    // The last days are recomputed from every row up to the watermark, which also repairs them after any double count.
+    @Scheduled(fixedDelayString = "${reporting.rollup.refold-interval:PT10M}", initialDelayString = "${reporting.rollup.refold-interval:PT10M}")
+    public void refoldRecentDays() {
+        if (!isEnabled()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!reportRollupWatermarkRepository.tryLock(WATERMARK)) {
+                return;
+            }
+            ReportRollupWatermarkEntity watermark = reportRollupWatermarkRepository.findById(WATERMARK).orElse(null);
+            if (watermark == null || watermark.getLastCreatedAt() == null) {
+                return;
+            }
+            LocalDate endDay = watermark.getLastCreatedAt().toLocalDate();
+            LocalDate startDay = endDay.minusDays(reportingProperties.getRollup().getRefoldDays());
+            ReportingProperties.Statistics statistics = reportingProperties.getStatistics();
+            reportRollupRepository.deleteDays(startDay, endDay);
+            int rows = reportRollupRepository.insertCountsForDays(statistics.getErrorMarker(), statistics.getSuccessMarker(),
+                    startDay.atStartOfDay(), endDay.plusDays(1).atStartOfDay(), watermark.getLastId());
+            log.debug("Refolded rollup days {} to {} into {} rows", startDay, endDay, rows);
+        });
+    }
+
+    // Completed days come from the rollup, the day the watermark is in and later ones from report_event
+    public Mono<List<ChannelStatisticProjection>> countStatisticsByChannelBetween(LocalDateTime start, LocalDateTime end) {
+        Mono<List<ChannelStatisticProjection>> rawOnly = countEventStatisticsByChannelBetween(start, end);
+
+        return queryExecutor.optional("ReportRollupWatermarkRepository.findById", () -> reportRollupWatermarkRepository.findById(WATERMARK))
+                .filter(watermark -> watermark.getLastCreatedAt() != null)
+                .map(watermark -> watermark.getLastCreatedAt().toLocalDate())
+                .flatMap(firstRawDay -> {
+                    LocalDate startDay = start.toLocalDate();
+                    LocalDate endDay = end.toLocalDate();
+                    if (!startDay.isBefore(firstRawDay)) {
+                        return rawOnly;
+                    }
+                    LocalDate lastRolledDay = endDay.isBefore(firstRawDay) ? endDay : firstRawDay.minusDays(1);
+                    Mono<List<ChannelStatisticProjection>> rolledUp = queryExecutor.mono("ReportRollupRepository.countStatisticsByChannelBetween", () ->
+                            reportRollupRepository.countStatisticsByChannelBetween(startDay, lastRolledDay));
+                    if (endDay.isBefore(firstRawDay)) {
+                        return rolledUp;
+                    }
+                    Mono<List<ChannelStatisticProjection>> raw = countEventStatisticsByChannelBetween(firstRawDay.atStartOfDay(), end);
+                    return Mono.zip(rolledUp, raw, (rolledUpRows, rawRows) -> {
+                        List<ChannelStatisticProjection> rows = new ArrayList<>(rolledUpRows);
+                        rows.addAll(rawRows);
+                        return rows;
+                    });
+                })
+                .switchIfEmpty(rawOnly);
+    }
+
+    // Counters straight from report_event, from the outcome column once it is backfilled
+    public Mono<List<ChannelStatisticProjection>> countEventStatisticsByChannelBetween(LocalDateTime start, LocalDateTime end) {
+        if (outcomeClassifier.isColumnReady()) {
+            return queryExecutor.mono("ReportRepository.countOutcomeStatisticsByChannelBetween", () -> reportRepository.countOutcomeStatisticsByChannelBetween(start, end));
+        }
+        ReportingProperties.Statistics statistics = reportingProperties.getStatistics();
+        return queryExecutor.mono("ReportRepository.countStatisticsByChannelBetween", () -> reportRepository.countStatisticsByChannelBetween(
+                statistics.getErrorMarker(), statistics.getSuccessMarker(), start, end));
+    }
+}
@@ -1,42 +1,130 @@
 package mch.reporting.service;
 
 import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ErrorSignatureResponse;
+import mch.reporting.model.EstimateResponse;
+import mch.reporting.model.ExportJob;
 import mch.reporting.model.ReportResponse;
+import mch.reporting.model.ReportSnapshot;
+import mch.reporting.model.ReportStreamElement;
 import mch.reporting.model.StatisticResponse;
+import mch.reporting.model.TimeSeriesResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Set;
+
 @RequestMapping("/reporting")
 public interface ReportService {
     @GetMapping("/")
-    Mono<ReportResponse> getAll();
+    Mono<ReportResponse> getAll(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/{id}")
     Mono<ReportResponse> getById(@PathVariable Long id);
 
+    @GetMapping("/ids")
+    Mono<ReportResponse> getByIds(@RequestParam List<Long> ids);
+
+    @PostMapping(value = "/ids", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> lookupIds(@RequestBody List<Long> ids);
+
     @GetMapping("/channel/{channel}")
-    Mono<ReportResponse> getByChannel(@PathVariable String channel);
+    Mono<ReportResponse> getByChannel(
+            @PathVariable String channel,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/date")
-    Mono<ReportResponse> getByDate(@RequestParam("date") String date);
+    Mono<ReportResponse> getByDate(
+            @RequestParam("date") String date,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/date-range")
     Mono<ReportResponse> getByDateBetween(
             @RequestParam("dateStart") String dateStart,
-            @RequestParam("dateEnd") String dateEnd);
+            @RequestParam("dateEnd") String dateEnd,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/errors")
-    Mono<ReportResponse> getByError(@RequestParam String errorMessageBody);
+    Mono<ReportResponse> getByError(
+            @RequestParam String errorMessageBody,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
+
+    @GetMapping("/errors/search")
+    Mono<ReportResponse> searchErrors(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit);
+
+    @GetMapping("/errors/top")
+    Mono<ErrorSignatureResponse> getTopErrors(
+            @RequestParam("dateStart") String dateStart,
+            @RequestParam("dateEnd") String dateEnd,
+            @RequestParam(required = false) String channel,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit);
 
     @GetMapping("/success")
-    Mono<ReportResponse> getBySuccess(@RequestParam(defaultValue = "success") String successMessageBody);
+    Mono<ReportResponse> getBySuccess(
+            @RequestParam(defaultValue = "success") String successMessageBody,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/payload")
-    Mono<ReportResponse> getByPayload(@RequestParam String payloadBody);
+    Mono<ReportResponse> getByPayload(
+            @RequestParam String payloadBody,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
+
+    @GetMapping("/payload/search")
+    Mono<ReportResponse> searchPayloads(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit);
+
+    @GetMapping("/search")
+    Mono<ReportResponse> search(
+            @RequestParam(required = false) String channel,
+            @RequestParam(required = false) String dateStart,
+            @RequestParam(required = false) String dateEnd,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String error,
+            @RequestParam(required = false) String payload,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Set<String> fields,
+            @RequestParam(required = false) String view);
 
     @GetMapping("/lastWeek")
     Mono<StatisticResponse>getLastWeek();
@@ -45,4 +133,64 @@ public interface ReportService {
     Mono<StatisticResponse>getStatisticByRange(
             @RequestParam("dateStart") String dateStart,
             @RequestParam("dateEnd") String dateEnd);
+
+    @GetMapping("/estimates")
+    Mono<EstimateResponse> getEstimates();
+
+    @GetMapping("/snapshots")
+    Flux<ReportSnapshot> getSnapshots();
+
+    @GetMapping("/snapshots/{name}")
+    Mono<ResponseEntity<Resource>> getSnapshot(
+            @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding);
+
+    @GetMapping("/timeseries")
+    Mono<TimeSeriesResponse> getTimeSeries(
+            @RequestParam("dateStart") String dateStart,
+            @RequestParam("dateEnd") String dateEnd,
+            @RequestParam(defaultValue = "hour") String bucket,
+            @RequestParam(defaultValue = "none") String groupBy);
+
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamAll();
+
+    @GetMapping(value = "/stream/channel/{channel}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamByChannel(@PathVariable String channel);
+
+    @GetMapping(value = "/stream/date", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamByDate(@RequestParam("date") String date);
+
+    @GetMapping(value = "/stream/date-range", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamByDateBetween(
+            @RequestParam("dateStart") String dateStart,
+            @RequestParam("dateEnd") String dateEnd);
+
+    @GetMapping(value = "/stream/errors", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamByError(@RequestParam String errorMessageBody);
+
+    @GetMapping(value = "/stream/success", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamBySuccess(@RequestParam(defaultValue = "success") String successMessageBody);
+
+    @GetMapping(value = "/stream/payload", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<ReportStreamElement> streamByPayload(@RequestParam String payloadBody);
+
+    @GetMapping(value = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<ReportEntity>> tail(@RequestParam(required = false) String channel);
+
+    @GetMapping(value = "/export", produces = "application/gzip")
+    ResponseEntity<Flux<DataBuffer>> exportCsv(
+            @RequestParam("dateStart") String dateStart,
+            @RequestParam("dateEnd") String dateEnd,
+            @RequestParam(required = false) String channel);
+
+    @PostMapping("/export/jobs")
+    Mono<ExportJob> startExportJob(
+            @RequestParam("dateStart") String dateStart,
+            @RequestParam("dateEnd") String dateEnd,
+            @RequestParam(required = false) String channel);
+
+    @GetMapping("/export/jobs/{id}")
+    Mono<ExportJob> getExportJob(@PathVariable String id);
 }
@@ -0,0 +1,141 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ErrorSignature;
+import mch.reporting.model.EstimateResponse;
+import mch.reporting.repository.ReportField;
+import mch.reporting.repository.ReportJdbcRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Constant size sketches over every report_event row: distinct channels and error signatures, error signature frequencies.
+// Rows are read above an id watermark kept in memory, a restart rebuilds the sketches from the first row.
+// Only poll touches the sketches, readers get the immutable snapshot published after each batch.
+@Slf4j
+@Component
+public class ReportSketches {
+
+    private static final Set<ReportField> FIELDS = EnumSet.of(ReportField.ID, ReportField.CHANNEL_NAME, ReportField.ERROR_BODY);
+
+    private final ReportingProperties reportingProperties;
+    private final ReportJdbcRepository reportJdbcRepository;
+    private final ReportingProperties.Sketches properties;
+    private final HyperLogLog channels;
+    private final HyperLogLog errorSignatures;
+    private final CountMinSketch signatureCounts;
+    // Heavy hitter candidates with their latest count-min estimate, at most topSignatures entries
+    private final Map<String, Long> topSignatures = new HashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private long rowCount;
+    private long errorCount;
+    private boolean complete;
+    private volatile EstimateResponse snapshot;
+
+    public ReportSketches(ReportingProperties reportingProperties, ReportJdbcRepository reportJdbcRepository, MeterRegistry meterRegistry) {
+        this.reportingProperties = reportingProperties;
+        this.reportJdbcRepository = reportJdbcRepository;
+        this.properties = reportingProperties.getSketches();
+        this.channels = new HyperLogLog(properties.getPrecision());
+        this.errorSignatures = new HyperLogLog(properties.getPrecision());
+        this.signatureCounts = new CountMinSketch(properties.getCountMinDepth(), properties.getCountMinWidth());
+        Gauge.builder("reporting.sketches.watermark", lastId, AtomicLong::get)
+                .description("Highest report_event id fed to the sketches")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${reporting.sketches.poll-interval:PT5S}")
+    public synchronized void poll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int batchSize = properties.getBatchSize();
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            List<ReportEntity> rows = reportJdbcRepository.findAfterId(lastId.get(), batchSize, FIELDS);
+            rows.forEach(this::add);
+            if (!rows.isEmpty()) {
+                lastId.set(rows.get(rows.size() - 1).getId());
+            }
+            boolean caughtUp = rows.size() < batchSize;
+            if (caughtUp && !complete) {
+                log.info("Sketches caught up with report_event at id {}", lastId.get());
+                complete = true;
+            }
+            snapshot = snapshot();
+            if (caughtUp) {
+                return;
+            }
+        }
+    }
+
+    // Null when disabled or before the first batch, the rest of EstimateResponse is filled by the caller
+    public EstimateResponse estimates() {
+        return properties.isEnabled() ? snapshot : null;
+    }
+
+    private EstimateResponse snapshot() {
+        List<ErrorSignature> top = new ArrayList<>(topSignatures.size());
+        topSignatures.forEach((signature, count) -> top.add(ErrorSignature.builder().signature(signature).count(count).build()));
+        top.sort(Comparator.comparingLong(ErrorSignature::getCount).reversed());
+        return EstimateResponse.builder()
+                .estimated(true)
+                .sketchedItemsCount(rowCount)
+                .sketchedErrorCount(errorCount)
+                .sketchedThroughId(lastId.get())
+                .complete(complete)
+                .distinctChannels(channels.estimate())
+                .distinctErrorSignatures(errorSignatures.estimate())
+                .topErrorSignatures(List.copyOf(top))
+                .build();
+    }
+
+    // Errors are recognised like the statistics do, by the error marker in errorBody
+    private void add(ReportEntity row) {
+        rowCount++;
+        if (row.getChannelName() != null) {
+            channels.add(SketchHash.hash(row.getChannelName().toLowerCase(Locale.ROOT)));
+        }
+        String errorBody = row.getErrorBody();
+        String errorMarker = reportingProperties.getStatistics().getErrorMarker().toLowerCase(Locale.ROOT);
+        if (errorBody == null || !errorBody.toLowerCase(Locale.ROOT).contains(errorMarker)) {
+            return;
+        }
+        errorCount++;
+        String signature = ErrorSignatures.normalise(errorBody);
+        long hash = SketchHash.hash(signature);
+        errorSignatures.add(hash);
+        signatureCounts.add(hash);
+        track(signature, signatureCounts.estimate(hash));
+    }
+
+    // Keeps the signatures with the highest estimates, a newcomer replaces the smallest candidate once it overtakes it
+    private void track(String signature, long estimate) {
+        if (topSignatures.containsKey(signature) || topSignatures.size() < properties.getTopSignatures()) {
+            topSignatures.put(signature, estimate);
+            return;
+        }
+        Map.Entry<String, Long> smallest = null;
+        for (Map.Entry<String, Long> candidate : topSignatures.entrySet()) {
+            if (smallest == null || candidate.getValue() < smallest.getValue()) {
+                smallest = candidate;
+            }
+        }
+        if (smallest != null && estimate > smallest.getValue()) {
+            topSignatures.remove(smallest.getKey());
+            topSignatures.put(signature, estimate);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package mch.reporting.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ReportSnapshot;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// Precomputes the configured responses on a cron and keeps them gzip-compressed on disk.
+// Files are named <name>.<hash>.json.gz, so the file served always matches the ETag it was looked up with.
+// Refreshes run one at a time on their own worker, never on the shared @Scheduled thread.
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReportSnapshotService implements DisposableBean {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String SUFFIX = ".json.gz";
+
+    private final ReportingService reportingService;
+    private final ObjectMapper objectMapper;
+    private final ReportingProperties reportingProperties;
+    private final Map<String, ReportSnapshot> snapshots = new ConcurrentHashMap<>();
+    // One blocking-capable worker, a refresh blocks on the queries of its response
+    private final Scheduler refreshScheduler = Schedulers.newBoundedElastic(1, 64, "reporting-snapshots");
+
+    // Snapshots written before a restart are served again, missing ones are computed in the background
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExisting() {
+        for (String name : reportingProperties.getSnapshots().getDefinitions().keySet()) {
+            if (!NAME.matcher(name).matches()) {
+                log.warn("Snapshot {} is skipped, names are limited to letters, digits, dash and underscore", name);
+                continue;
+            }
+            Optional<Path> existing = latestFile(name);
+            if (existing.isPresent()) {
+                snapshots.put(name, describe(name, existing.get()));
+            } else {
+                refreshInBackground(name);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${reporting.snapshots.cron:0 0 6 * * MON}")
+    public void refreshAll() {
+        reportingProperties.getSnapshots().getDefinitions().keySet().forEach(this::refreshInBackground);
+    }
+
+    @Override
+    public void destroy() {
+        refreshScheduler.dispose();
+    }
+
+    // An unchanged response keeps its file, ETag and Last-Modified
+    public synchronized ReportSnapshot refresh(String name) {
+        ReportingProperties.SnapshotDefinition definition = definition(name);
+        byte[] compressed = gzip(serialise(compute(definition).block()));
+        String hash = sha256(compressed);
+        ReportSnapshot current = snapshots.get(name);
+        if (current != null && current.getEtag().equals(quote(hash)) && Files.exists(file(name, hash))) {
+            return current;
+        }
+        try {
+            Path directory = Path.of(reportingProperties.getSnapshots().getDirectory());
+            Files.createDirectories(directory);
+            Path part = directory.resolve(name + "." + hash + SUFFIX + ".part");
+            Files.write(part, compressed);
+            Path target = file(name, hash);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            ReportSnapshot snapshot = describe(name, target);
+            snapshots.put(name, snapshot);
+            // The replaced file stays until the next refresh for requests that looked it up just before
+            deleteOlderFiles(name, List.of(target, current != null ? file(current) : target));
+            log.info("Snapshot {} refreshed, {} bytes with ETag {}", name, snapshot.getByteCount(), snapshot.getEtag());
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<ReportSnapshot> find(String name) {
+        return Optional.ofNullable(snapshots.get(name));
+    }
+
+    public Collection<ReportSnapshot> list() {
+        return List.copyOf(snapshots.values());
+    }
+
+    public Path file(ReportSnapshot snapshot) {
+        return file(snapshot.getName(), unquote(snapshot.getEtag()));
+    }
+
+    private void refreshInBackground(String name) {
+        Mono.fromRunnable(() -> refreshQuietly(name)).subscribeOn(refreshScheduler).subscribe();
+    }
+
+    private void refreshQuietly(String name) {
+        try {
+            refresh(name);
+        } catch (RuntimeException e) {
+            log.error("Snapshot {} could not be refreshed, the previous one is still served", name, e);
+        }
+    }
+
+    private ReportingProperties.SnapshotDefinition definition(String name) {
+        ReportingProperties.SnapshotDefinition definition = reportingProperties.getSnapshots().getDefinitions().get(name);
+        if (definition == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Unknown snapshot " + name);
+        }
+        return definition;
+    }
+
+    // Ranges end today, like a request sent at the time of the refresh
+    private Mono<?> compute(ReportingProperties.SnapshotDefinition definition) {
+        LocalDate today = LocalDate.now();
+        String start = today.minusDays(definition.getDays() - 1L).toString();
+        String end = today.toString();
+        return switch (definition.getKind()) {
+            case LAST_WEEK -> reportingService.getLastWeekStatistics();
+            case STATISTIC_RANGE -> reportingService.getStatisticsForDateRange(start, end);
+            case TOP_ERRORS -> reportingService.getTopErrorSignatures(start, end, null, null, null);
+        };
+    }
+
+    // Same mapper as the HTTP responses, a snapshot is byte for byte what the endpoint would have answered
+    private byte[] serialise(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Snapshot response could not be serialised", e);
+        }
+    }
+
+    // GZIPOutputStream leaves the header timestamp at zero, equal responses compress to equal bytes
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private Optional<Path> latestFile(String name) {
+        List<Path> files = files(name);
+        Path latest = null;
+        for (Path file : files) {
+            if (latest == null || lastModified(file).isAfter(lastModified(latest))) {
+                latest = file;
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    private void deleteOlderFiles(String name, List<Path> keep) {
+        for (Path file : files(name)) {
+            if (!keep.contains(file)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Could not delete old snapshot file {}", file, e);
+                }
+            }
+        }
+    }
+
+    private List<Path> files(String name) {
+        Path directory = Path.of(reportingProperties.getSnapshots().getDirectory());
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, name + ".*" + SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return files;
+    }
+
+    private ReportSnapshot describe(String name, Path file) {
+        String fileName = file.getFileName().toString();
+        String hash = fileName.substring(name.length() + 1, fileName.length() - SUFFIX.length());
+        try {
+            return ReportSnapshot.builder()
+                    .name(name)
+                    .etag(quote(hash))
+                    .byteCount(Files.size(file))
+                    .createdAt(lastModified(file))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(String name, String hash) {
+        return Path.of(reportingProperties.getSnapshots().getDirectory()).resolve(name + "." + hash + SUFFIX);
+    }
+
+    private static LocalDateTime lastModified(Path file) {
+        try {
+            return LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Half of a SHA-256 is plenty to tell two snapshots of one name apart
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String quote(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    private static String unquote(String etag) {
+        return etag.substring(1, etag.length() - 1);
+    }
+}
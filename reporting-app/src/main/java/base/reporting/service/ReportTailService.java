@@ -0,0 +1,136 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Follows report_event as rows arrive, a single poller feeds every subscriber.
+// Ids are assigned at insert but become visible at commit, so each poll re-reads a trailing window of ids below the
+// highest one seen. A row committing more than that window behind the highest id is still missed.
+@Slf4j
+@Service
+public class ReportTailService {
+
+    private final ReportingProperties.Tail properties;
+    private final ReportRepository reportRepository;
+    private final ReportJdbcRepository reportJdbcRepository;
+    private final QueryExecutor queryExecutor;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Flux<ReportEntity> newReports;
+
+    public ReportTailService(ReportingProperties reportingProperties, ReportRepository reportRepository,
+                             ReportJdbcRepository reportJdbcRepository, QueryExecutor queryExecutor, MeterRegistry meterRegistry) {
+        this.properties = reportingProperties.getTail();
+        this.reportRepository = reportRepository;
+        this.reportJdbcRepository = reportJdbcRepository;
+        this.queryExecutor = queryExecutor;
+        // Polling starts with the first subscriber and stops after the last one leaves
+        this.newReports = Flux.defer(() -> {
+                    TailWindow window = new TailWindow(properties.getReorderWindow());
+                    return Flux.interval(Duration.ZERO, properties.getPollInterval())
+                            .onBackpressureDrop()
+                            .concatMap(tick -> poll(window), 1)
+                            .flatMapIterable(rows -> rows);
+                })
+                .share();
+        Gauge.builder("reporting.tail.subscribers", subscribers, AtomicInteger::get)
+                .description("Clients following new report_event rows")
+                .register(meterRegistry);
+    }
+
+    // New rows of one channel, or of every channel when none is given, with periodic keep-alive comments
+    public Flux<ServerSentEvent<ReportEntity>> tail(String channel) {
+        Flux<ServerSentEvent<ReportEntity>> rows = newReports
+                .filter(report -> channel == null || channel.equalsIgnoreCase(report.getChannelName()))
+                .onBackpressureBuffer(properties.getSubscriberBuffer(), BufferOverflowStrategy.DROP_OLDEST)
+                .map(report -> ServerSentEvent.builder(report)
+                        .id(String.valueOf(report.getId()))
+                        .event("report")
+                        .build());
+        Flux<ServerSentEvent<ReportEntity>> heartbeats = Flux.interval(properties.getHeartbeat())
+                .map(tick -> ServerSentEvent.<ReportEntity>builder().comment("keep-alive").build());
+        return Flux.merge(rows, heartbeats)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    // The first tick only records the current max(id), later ticks read what was inserted since
+    private Mono<List<ReportEntity>> poll(TailWindow window) {
+        if (!window.isStarted()) {
+            return queryExecutor.optional("ReportRepository.findMaxId", reportRepository::findMaxId)
+                    .defaultIfEmpty(0L)
+                    .doOnNext(window::start)
+                    .thenReturn(List.<ReportEntity>of())
+                    .onErrorResume(e -> skipTick(e));
+        }
+        // The window's rows come back with every poll, the limit leaves room for them
+        long from = window.from();
+        return queryExecutor.mono("ReportJdbcRepository.findAfterId",
+                        () -> reportJdbcRepository.findAfterId(from, properties.getBatchSize() + properties.getReorderWindow()))
+                .map(window::accept)
+                .onErrorResume(e -> skipTick(e));
+    }
+
+    // A failed poll is retried on the next tick instead of ending every subscription
+    private static Mono<List<ReportEntity>> skipTick(Throwable e) {
+        log.warn("Polling new reports failed, retrying on the next tick", e);
+        return Mono.just(List.of());
+    }
+
+    // Highest id seen and the ids already emitted within the trailing window below it.
+    // Rows up to the max(id) found at start are never emitted, a late commit below it is missed.
+    static final class TailWindow {
+
+        private final int size;
+        private final NavigableSet<Long> emitted = new TreeSet<>();
+        private long startId = -1;
+        private long lastSeenId = -1;
+
+        TailWindow(int size) {
+            this.size = size;
+        }
+
+        boolean isStarted() {
+            return startId >= 0;
+        }
+
+        void start(long maxId) {
+            startId = maxId;
+            lastSeenId = maxId;
+        }
+
+        long from() {
+            return Math.max(startId, lastSeenId - size);
+        }
+
+        // Rows of one poll in id order, returns those not emitted before
+        List<ReportEntity> accept(List<ReportEntity> rows) {
+            List<ReportEntity> fresh = new ArrayList<>(rows.size());
+            for (ReportEntity row : rows) {
+                if (row.getId() > startId && emitted.add(row.getId())) {
+                    fresh.add(row);
+                }
+                lastSeenId = Math.max(lastSeenId, row.getId());
+            }
+            emitted.headSet(from(), true).clear();
+            return fresh;
+        }
+    }
+}
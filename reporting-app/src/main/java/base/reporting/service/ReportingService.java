@@ -1,11 +1,20 @@
 package mch.reporting.service;
 
 import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ErrorSignatureResponse;
+import mch.reporting.model.EstimateResponse;
 import mch.reporting.model.ReportResponse;
+import mch.reporting.model.ReportStreamElement;
 import mch.reporting.model.StatisticResponse;
+import mch.reporting.model.TimeSeriesResponse;
+import mch.reporting.repository.ReportCriteria;
+import mch.reporting.repository.ReportField;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Set;
+
 public interface ReportingService {
 
     //Get all registers
@@ -16,7 +25,6 @@ public interface ReportingService {
     //Get all registers by Id
     Mono<ReportResponse> getById(Long id);
     Mono<ReportEntity> getAllReportsOptional(Long id);
-    Mono<Long> countById(Long id);
 
     //Get registers between two dates
     Mono<ReportResponse> getByDateBetween(String dateStart, String dateEnd);
@@ -48,7 +56,32 @@ public interface ReportingService {
     Flux<ReportEntity> getAllReportsByEventPayloadFlux(String eventPayload);
     Mono<Long> countAllReportsByEventPayload(String eventPayload);
 
+    //Search registers by text, best matches first
+    Mono<ReportResponse> searchReports(ReportField field, String term, Integer limit);
+
+    //Get one keyset page of registers
+    Mono<ReportResponse> getReportsPage(ReportCriteria criteria, String continuationToken, Integer limit, Set<String> fields);
+
+    //Get registers as summaries, one keyset page when a limit or token is given
+    Mono<ReportResponse> getReportSummaries(ReportCriteria criteria, String continuationToken, Integer limit);
+
+    //Get complete registers by id
+    Mono<ReportResponse> getByIds(List<Long> ids);
+    Flux<ReportStreamElement> lookupIds(List<Long> ids);
+
+    //Stream registers followed by a summary element
+    Flux<ReportStreamElement> streamReports(ReportCriteria criteria);
+
     //Get statistics
     Mono<StatisticResponse> getLastWeekStatistics();
     Mono<StatisticResponse> getStatisticsForDateRange(String startDate, String endDate);
+
+    //Get the most frequent error signatures
+    Mono<ErrorSignatureResponse> getTopErrorSignatures(String startDate, String endDate, String channelName, String errorBodyContains, Integer limit);
+
+    //Get table wide estimates from planner statistics and sketches
+    Mono<EstimateResponse> getEstimates();
+
+    //Get counts per time bucket
+    Mono<TimeSeriesResponse> getTimeSeries(String startDate, String endDate, String bucket, String groupBy);
 }
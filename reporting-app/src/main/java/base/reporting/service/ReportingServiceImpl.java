@@ -2,19 +2,45 @@ package mch.reporting.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mch.reporting.config.ReportingProperties;
 import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ContinuationToken;
+import mch.reporting.model.ErrorSignature;
+import mch.reporting.model.ErrorSignatureResponse;
+import mch.reporting.model.EstimateResponse;
 import mch.reporting.model.ReportResponse;
+import mch.reporting.model.ReportStreamElement;
+import mch.reporting.model.ReportSummary;
 import mch.reporting.model.StatisticResponse;
+import mch.reporting.model.TimeBucket;
+import mch.reporting.model.TimeSeries;
+import mch.reporting.model.TimeSeriesGrouping;
+import mch.reporting.model.TimeSeriesResponse;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.QueryTier;
+import mch.reporting.repository.ReportCriteria;
+import mch.reporting.repository.ReportField;
+import mch.reporting.repository.ReportJdbcRepository;
 import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.projection.ErrorSignatureRow;
+import mch.reporting.repository.projection.TimeSeriesRow;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -22,246 +48,405 @@ import java.util.List;
 public class ReportingServiceImpl implements ReportingService{
 
     private final ReportRepository reportRepository;
-
-    // Helper method to build ReportResponse
-    private Mono<ReportResponse> buildReportResponse(Mono<Long> specificCountMono, Mono<Long> totalCountMono, List<ReportEntity> reportList) {
+    private final QueryExecutor queryExecutor;
+    private final ReportJdbcRepository reportJdbcRepository;
+    private final StatisticsAggregator statisticsAggregator;
+    private final ReportRollupService reportRollupService;
+    private final ReportCache reportCache;
+    private final LiveStatistics liveStatistics;
+    private final ReportSketches reportSketches;
+    private final ReportingProperties reportingProperties;
+
+    // Helper method to build ReportResponse, the list and both counts are fetched concurrently
+    private Mono<ReportResponse> buildReportResponse(Mono<List<ReportEntity>> reportListMono, Mono<ReportCount> specificCountMono, Mono<ReportCount> totalCountMono) {
         return Mono.zip(
-                        specificCountMono.defaultIfEmpty(0L),
-                        totalCountMono.defaultIfEmpty(0L)
+                        reportListMono,
+                        specificCountMono.defaultIfEmpty(ReportCount.exact(0L)),
+                        totalCountMono.defaultIfEmpty(ReportCount.exact(0L))
                 )
-                .flatMap(tuple -> {
-                    Long specificCount = tuple.getT1();
-                    Long totalCount = tuple.getT2();
-                    float percentage = (totalCount != 0) ? ((float) (specificCount * 100) / totalCount) : 0.0f;
+                .map(tuple -> {
+                    long specificCount = tuple.getT2().getValue();
+                    long totalCount = tuple.getT3().getValue();
+                    float percentage = StatisticsAggregator.percentage(specificCount, totalCount);
 
                     // Build the response
-                    ReportResponse reportResponse = ReportResponse.builder()
+                    return ReportResponse.builder()
                             .totalQueryCount(specificCount)
                             .totalItemsCount(totalCount)
                             .percentageCount(percentage)
-                            .reportEntities(reportList)
+                            .estimated(tuple.getT2().isEstimated() || tuple.getT3().isEstimated())
+                            .reportEntities(tuple.getT1())
                             .build();
-
-                    return Mono.just(reportResponse);
                 });
     }
 
+    // When the filtered count runs the same predicate as the list it is taken from the list size
+    private Mono<ReportResponse> buildReportResponse(Mono<List<ReportEntity>> reportListMono, Mono<ReportCount> totalCountMono) {
+        Mono<List<ReportEntity>> sharedListMono = reportListMono.cache();
+        return buildReportResponse(sharedListMono, sharedListMono.map(reportList -> ReportCount.exact(reportList.size())), totalCountMono);
+    }
+
     // Get all registers
     @Override
     public Mono<ReportResponse> getAllReports() {
-        return getAllReportsFlux()  // Calling method brings all reports
-                .collectList()  // Group all reports into a list
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                Mono.just((long) reportList.size()),  // Total amount of obtained reports in list
-                                countAllReports(),  // Total amount of db registers
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsFlux().collectList(),  // Calling method brings all reports
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsFlux() {
-        return Flux.fromIterable(reportRepository.findAll());
+        return queryExecutor.flux("ReportRepository.findAll", () -> reportRepository.findAll());
     }
 
     @Override
     public Mono<Long> countAllReports() {
-        return Mono.just(reportRepository.count());
+        return totalCount().map(ReportCount::getValue);
+    }
+
+    // With approx=true the planner estimate replaces the exact count, the exact count stays the fallback until the table is analyzed
+    private Mono<ReportCount> totalCount() {
+        Mono<ReportCount> exactCount = reportCache.totalCount(() -> queryExecutor.mono("ReportRepository.count", () -> reportRepository.count()))
+                .map(ReportCount::exact);
+        return Mono.deferContextual(context -> ApproximateCounts.requested(context)
+                ? queryExecutor.optional("ReportJdbcRepository.estimateTotalCount", reportJdbcRepository::estimateTotalCount)
+                        .map(ReportCount::estimate)
+                        .switchIfEmpty(exactCount)
+                : exactCount);
+    }
+
+    // Filtered counts are estimated by planning the count query without running it
+    private Mono<ReportCount> countMatching(ReportCriteria criteria) {
+        return Mono.deferContextual(context -> ApproximateCounts.requested(context)
+                ? queryExecutor.mono("ReportJdbcRepository.estimateCount", () -> reportJdbcRepository.estimateCount(criteria)).map(ReportCount::estimate)
+                : queryExecutor.mono("ReportJdbcRepository.count", queryExecutor.tier("ReportJdbcRepository.count", criteria),
+                        () -> reportJdbcRepository.count(criteria)).map(ReportCount::exact));
     }
 
     // Get registers between two dates
     @Override
     public Mono<ReportResponse> getByDateBetween(String dateStart, String dateEnd) {
-        return getAllReportsByDateBetween(dateStart, dateEnd)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByDateBetween(dateStart, dateEnd),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByDateBetween(dateStart, dateEnd).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByDateBetween(String start, String end) {
-        LocalDate localDateStart = LocalDate.parse(start, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime startOfDate = localDateStart.atStartOfDay();
-
-        LocalDate localDateEnd = LocalDate.parse(end, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime endOfDate = localDateEnd.atTime(23,59,59);
+        LocalDateTime startOfDate = ReportDates.startOfDay(start);
+        LocalDateTime endOfDate = ReportDates.endOfDay(end);
 
-        return Flux.fromIterable(reportRepository.findAllByCreatedAtBetween(startOfDate, endOfDate));
+        return queryExecutor.flux("ReportRepository.findAllByCreatedAtBetween", () -> reportRepository.findAllByCreatedAtBetween(startOfDate, endOfDate));
     }
 
     @Override
     public Mono<Long> countAllReportsByDateBetween(String start, String end) {
-        LocalDate localDateStart = LocalDate.parse(start, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime startOfDate = localDateStart.atStartOfDay();
-
-        LocalDate localDateEnd = LocalDate.parse(end, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime endOfDate = localDateEnd.atTime(23,59,59);
+        LocalDateTime startOfDate = ReportDates.startOfDay(start);
+        LocalDateTime endOfDate = ReportDates.endOfDay(end);
 
-        return Mono.just(reportRepository.countAllByCreatedAtBetween(startOfDate, endOfDate));
+        return queryExecutor.mono("ReportRepository.countAllByCreatedAtBetween", () -> reportRepository.countAllByCreatedAtBetween(startOfDate, endOfDate));
     }
 
     // Get registers by Id
     @Override
     public Mono<ReportResponse> getById(Long id) {
-        return getAllReportsOptional(id)
-                .flatMap(reportEntity ->
-                        buildReportResponse(
-                                countById(id),
-                                countAllReports(),
-                                List.of(reportEntity)
-                        )
-                ).switchIfEmpty(Mono.defer(() ->
-                        buildReportResponse(
-                                Mono.just(0L),
-                                countAllReports(),
-                                Collections.emptyList()
-                        )
-                ));
+        return buildReportResponse(
+                getAllReportsOptional(id).map(List::of).defaultIfEmpty(Collections.emptyList()),
+                totalCount()
+        );
     }
 
     @Override
     public Mono<ReportEntity> getAllReportsOptional(Long id) {
-        return Mono.justOrEmpty(reportRepository.findById(id));
-    }
-
-    @Override
-    public Mono<Long> countById(Long id) {
-        return Mono.just(reportRepository.countAllById(id));
+        return queryExecutor.optional("ReportRepository.findById", () -> reportRepository.findById(id));
     }
 
     // Get registers by ChannelName
     @Override
     public Mono<ReportResponse> getAllReportsByChannelName(String channelName) {
-        return getAllReportsByChannelNameFlux(channelName)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByChannelName(channelName),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByChannelNameFlux(channelName).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByChannelNameFlux(String channelName) {
-        return Flux.fromIterable(reportRepository.findAllByChannelNameEqualsIgnoreCase(channelName));
+        return queryExecutor.flux("ReportRepository.findAllByChannelNameEqualsIgnoreCase", () -> reportRepository.findAllByChannelNameEqualsIgnoreCase(channelName));
     }
 
     @Override
     public Mono<Long> countAllReportsByChannelName(String channelName) {
-        return Mono.just(reportRepository.countAllByChannelNameEqualsIgnoreCase(channelName));
+        return queryExecutor.mono("ReportRepository.countAllByChannelNameEqualsIgnoreCase", () -> reportRepository.countAllByChannelNameEqualsIgnoreCase(channelName));
     }
 
     // Get all registers by Date
     public Mono<ReportResponse> getAllReportsByDate(String date) {
-        return getAllReportsByDateFlux(date)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByDate(date),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByDateFlux(date).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByDateFlux(String date) {
-        LocalDate localDate = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime startOfDate = localDate.atStartOfDay();
-        LocalDateTime endOfDate = localDate.atTime(23,59,59);
+        LocalDateTime startOfDate = ReportDates.startOfDay(date);
+        LocalDateTime endOfDate = ReportDates.endOfDay(date);
 
-        return Flux.fromIterable(reportRepository.findAllByCreatedAtBetween(startOfDate, endOfDate));
+        return queryExecutor.flux("ReportRepository.findAllByCreatedAtBetween", () -> reportRepository.findAllByCreatedAtBetween(startOfDate, endOfDate));
     }
 
     @Override
     public Mono<Long> countAllReportsByDate(String date) {
-        LocalDate localDate = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime startOfDate = localDate.atStartOfDay();
-        LocalDateTime endOfDate = localDate.atTime(23,59,59);
+        LocalDateTime startOfDate = ReportDates.startOfDay(date);
+        LocalDateTime endOfDate = ReportDates.endOfDay(date);
 
-        return Mono.just(reportRepository.countAllByCreatedAtBetween(startOfDate, endOfDate));
+        return queryExecutor.mono("ReportRepository.countAllByCreatedAtBetween", () -> reportRepository.countAllByCreatedAtBetween(startOfDate, endOfDate));
     }
 
     // Get all registers by Error
     public Mono<ReportResponse> getAllReportsByErrorBody(String errorMessageBody) {
-        return getAllReportsByErrorBodyFlux(errorMessageBody)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByErrorBody(errorMessageBody),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByErrorBodyFlux(errorMessageBody).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByErrorBodyFlux(String errorMessageBody) {
-        return Flux.fromIterable(reportRepository.findAllByErrorBodyContainingIgnoreCase(errorMessageBody));
+        return queryExecutor.flux("ReportRepository.findAllByErrorBodyMatching", () -> reportRepository.findAllByErrorBodyMatching(ReportCriteria.containsPattern(errorMessageBody)));
     }
 
     @Override
     public Mono<Long> countAllReportsByErrorBody(String errorMessageBody) {
-        return Mono.just(reportRepository.countAllByErrorBodyContainingIgnoreCase(errorMessageBody));
+        return queryExecutor.mono("ReportRepository.countAllByErrorBodyMatching", () -> reportRepository.countAllByErrorBodyMatching(ReportCriteria.containsPattern(errorMessageBody)));
     }
 
     // Get all registers by Success
     public Mono<ReportResponse> getAllReportsByErrorBodySuccess(String errorMessageBody) {
-        return getAllReportsByErrorBodySuccessFlux(errorMessageBody)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByErrorBodySuccess(errorMessageBody),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByErrorBodySuccessFlux(errorMessageBody).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByErrorBodySuccessFlux(String errorMessageBody) {
-        return Flux.fromIterable(reportRepository.findAllByErrorBodyEquals(errorMessageBody));
+        return queryExecutor.flux("ReportRepository.findAllByErrorBodyEquals", () -> reportRepository.findAllByErrorBodyEquals(errorMessageBody));
     }
 
     @Override
     public Mono<Long> countAllReportsByErrorBodySuccess(String errorMessageBody) {
-        return Mono.just(reportRepository.countAllByErrorBodyEquals(errorMessageBody));
+        return queryExecutor.mono("ReportRepository.countAllByErrorBodyEquals", () -> reportRepository.countAllByErrorBodyEquals(errorMessageBody));
     }
 
     // Get all registers by Payload
     public Mono<ReportResponse> getAllReportsByEventPayload(String eventPayload) {
-        return getAllReportsByEventPayloadFlux(eventPayload)
-                .collectList()
-                .flatMap(reportList ->
-                        buildReportResponse(
-                                countAllReportsByEventPayload(eventPayload),
-                                countAllReports(),
-                                reportList
-                        )
-                );
+        return buildReportResponse(
+                getAllReportsByEventPayloadFlux(eventPayload).collectList(),
+                totalCount()  // Total amount of db registers
+        );
     }
 
     @Override
     public Flux<ReportEntity> getAllReportsByEventPayloadFlux(String eventPayload) {
-        return Flux.fromIterable(reportRepository.findAllByEventPayloadContainingIgnoreCase(eventPayload));
+        return queryExecutor.flux("ReportRepository.findAllByEventPayloadMatching", () -> reportRepository.findAllByEventPayloadMatching(ReportCriteria.containsPattern(eventPayload)));
     }
 
     @Override
     public Mono<Long> countAllReportsByEventPayload(String eventPayload) {
-        return Mono.just(reportRepository.countAllByEventPayloadContainingIgnoreCase(eventPayload));
+        return queryExecutor.mono("ReportRepository.countAllByEventPayloadMatching", () -> reportRepository.countAllByEventPayloadMatching(ReportCriteria.containsPattern(eventPayload)));
+    }
+
+    // Search registers through the trigram indexes, ranked by similarity
+    @Override
+    public Mono<ReportResponse> searchReports(ReportField field, String term, Integer limit) {
+        if (field != ReportField.ERROR_BODY && field != ReportField.EVENT_PAYLOAD) {
+            return Mono.error(new IllegalArgumentException("Field is not searchable: " + field.getFieldName()));
+        }
+        int searchLimit = Math.min(limit != null ? limit : reportingProperties.getPage().getDefaultSize(), reportingProperties.getPage().getMaxSize());
+        if (searchLimit < 1) {
+            return Mono.error(new IllegalArgumentException("limit must be positive"));
+        }
+        return buildReportResponse(
+                queryExecutor.mono("ReportJdbcRepository.search", () -> reportJdbcRepository.search(field, term, searchLimit)),
+                totalCount()
+        );
+    }
+
+    // Get one page of registers ordered by (createdAt, id)
+    @Override
+    public Mono<ReportResponse> getReportsPage(ReportCriteria criteria, String continuationToken, Integer limit, Set<String> fields) {
+        ReportingProperties.Page page = reportingProperties.getPage();
+        int pageSize = Math.min(limit != null ? limit : page.getDefaultSize(), page.getMaxSize());
+        if (pageSize < 1) {
+            return Mono.error(new IllegalArgumentException("limit must be positive"));
+        }
+        ContinuationToken after = continuationToken != null ? ContinuationToken.decode(continuationToken) : null;
+        Set<ReportField> reportFields = ReportField.parse(fields);
+        boolean unfiltered = ReportCriteria.all().equals(criteria);
+
+        Mono<List<ReportEntity>> rowsMono = queryExecutor.mono("ReportJdbcRepository.findPage", queryExecutor.tier("ReportJdbcRepository.findPage", criteria),
+                () -> reportJdbcRepository.findPage(criteria, after, pageSize, reportFields));
+        Mono<ReportCount> totalCountMono = totalCount();
+        Mono<ReportCount> specificCountMono = unfiltered ? totalCountMono : countMatching(criteria);
+
+        return buildReportResponse(rowsMono, specificCountMono, totalCountMono)
+                .map(reportResponse -> {
+                    // One extra row was read to know whether another page follows
+                    List<ReportEntity> rows = reportResponse.getReportEntities();
+                    if (rows.size() > pageSize) {
+                        List<ReportEntity> reportList = List.copyOf(rows.subList(0, pageSize));
+                        ReportEntity last = reportList.get(pageSize - 1);
+                        reportResponse.setReportEntities(reportList);
+                        reportResponse.setContinuationToken(new ContinuationToken(last.getCreatedAt(), last.getId()).encode());
+                    }
+                    return reportResponse;
+                });
+    }
+
+    // Get registers without their text bodies, paged like getReportsPage when a limit or token is given
+    @Override
+    public Mono<ReportResponse> getReportSummaries(ReportCriteria criteria, String continuationToken, Integer limit) {
+        ReportingProperties.Page page = reportingProperties.getPage();
+        boolean paged = limit != null || continuationToken != null;
+        int pageSize = Math.min(limit != null ? limit : page.getDefaultSize(), page.getMaxSize());
+        if (paged && pageSize < 1) {
+            return Mono.error(new IllegalArgumentException("limit must be positive"));
+        }
+        ContinuationToken after = continuationToken != null ? ContinuationToken.decode(continuationToken) : null;
+
+        // An unpaged listing reads every matching row, like the findAll queries it belongs on the analytics tier
+        QueryTier tier = paged ? queryExecutor.tier("ReportJdbcRepository.findSummaries", criteria) : QueryTier.ANALYTICS;
+        Mono<List<ReportSummary>> rowsMono = queryExecutor.mono("ReportJdbcRepository.findSummaries", tier,
+                () -> reportJdbcRepository.findSummaries(criteria, after, paged ? pageSize : null)).cache();
+        Mono<ReportCount> totalCountMono = totalCount();
+        Mono<ReportCount> specificCountMono = !paged ? rowsMono.map(rows -> ReportCount.exact(rows.size()))
+                : ReportCriteria.all().equals(criteria) ? totalCountMono
+                : countMatching(criteria);
+
+        return Mono.zip(rowsMono, specificCountMono.defaultIfEmpty(ReportCount.exact(0L)), totalCountMono.defaultIfEmpty(ReportCount.exact(0L)))
+                .map(tuple -> {
+                    List<ReportSummary> rows = tuple.getT1();
+                    ReportResponse.ReportResponseBuilder reportResponse = ReportResponse.builder()
+                            .totalQueryCount(tuple.getT2().getValue())
+                            .totalItemsCount(tuple.getT3().getValue())
+                            .percentageCount(StatisticsAggregator.percentage(tuple.getT2().getValue(), tuple.getT3().getValue()))
+                            .estimated(tuple.getT2().isEstimated() || tuple.getT3().isEstimated());
+                    // One extra row was read to know whether another page follows
+                    if (paged && rows.size() > pageSize) {
+                        rows = rows.subList(0, pageSize);
+                        ReportSummary last = rows.get(pageSize - 1);
+                        reportResponse.continuationToken(new ContinuationToken(last.getCreatedAt(), last.getId()).encode());
+                    }
+                    return reportResponse.reportSummaries(rows).build();
+                });
+    }
+
+    // Get complete registers in request order, ids without a register are listed as missing
+    @Override
+    public Mono<ReportResponse> getByIds(List<Long> ids) {
+        return Mono.zip(resolveIds(ids).collectList(), totalCount().defaultIfEmpty(ReportCount.exact(0L)))
+                .map(tuple -> {
+                    ReportResponse.ReportResponseBuilder response = ReportResponse.builder();
+                    long foundCount = 0;
+                    for (ReportStreamElement element : tuple.getT1()) {
+                        if (element.getReportEntity() != null) {
+                            response.reportEntity(element.getReportEntity());
+                            foundCount++;
+                        } else {
+                            response.missingId(element.getMissingId());
+                        }
+                    }
+                    long totalCount = tuple.getT2().getValue();
+                    return response
+                            .totalQueryCount(foundCount)
+                            .totalItemsCount(totalCount)
+                            .percentageCount(StatisticsAggregator.percentage(foundCount, totalCount))
+                            .estimated(tuple.getT2().isEstimated())
+                            .build();
+                });
+    }
+
+    // Stream one element per requested id in request order, the counts follow as the last element
+    @Override
+    public Flux<ReportStreamElement> lookupIds(List<Long> ids) {
+        return Flux.defer(() -> {
+            AtomicLong foundCount = new AtomicLong();
+            return resolveIds(ids)
+                    .doOnNext(element -> {
+                        if (element.getReportEntity() != null) {
+                            foundCount.incrementAndGet();
+                        }
+                    })
+                    .concatWith(totalCount()
+                            .map(totalCount -> ReportStreamElement.builder()
+                                    .estimated(totalCount.isEstimated())
+                                    .totalQueryCount(foundCount.get())
+                                    .totalItemsCount(totalCount.getValue())
+                                    .percentageCount(StatisticsAggregator.percentage(foundCount.get(), totalCount.getValue()))
+                                    .build()));
+        });
+    }
+
+    // One = any(?) query per chunk of the request, chunks are queried one after the other so elements keep the request order
+    private Flux<ReportStreamElement> resolveIds(List<Long> ids) {
+        ReportingProperties.Lookup lookup = reportingProperties.getLookup();
+        if (ids.size() > lookup.getMaxIds()) {
+            return Flux.error(new IllegalArgumentException("At most " + lookup.getMaxIds() + " ids per request"));
+        }
+        if (ids.contains(null)) {
+            return Flux.error(new IllegalArgumentException("ids must not contain null"));
+        }
+        int chunkSize = lookup.getChunkSize();
+        return Flux.range(0, (ids.size() + chunkSize - 1) / chunkSize)
+                .map(chunk -> ids.subList(chunk * chunkSize, Math.min(ids.size(), (chunk + 1) * chunkSize)))
+                .concatMap(chunkIds -> queryExecutor.mono("ReportJdbcRepository.findByIds", () -> reportJdbcRepository.findByIds(new LinkedHashSet<>(chunkIds)))
+                        .flatMapIterable(reportEntities -> {
+                            Map<Long, ReportEntity> byId = new HashMap<>();
+                            reportEntities.forEach(reportEntity -> byId.put(reportEntity.getId(), reportEntity));
+                            List<ReportStreamElement> elements = new ArrayList<>(chunkIds.size());
+                            for (Long id : chunkIds) {
+                                ReportEntity reportEntity = byId.get(id);
+                                elements.add(reportEntity != null
+                                        ? ReportStreamElement.builder().reportEntity(reportEntity).build()
+                                        : ReportStreamElement.builder().missingId(id).build());
+                            }
+                            return elements;
+                        }));
+    }
+
+    // Stream registers from a database cursor, the counts follow as the last element
+    @Override
+    public Flux<ReportStreamElement> streamReports(ReportCriteria criteria) {
+        return Flux.defer(() -> {
+            AtomicLong streamedCount = new AtomicLong();
+            return reportJdbcRepository.stream(criteria)
+                    .map(reportEntity -> {
+                        streamedCount.incrementAndGet();
+                        return ReportStreamElement.builder().reportEntity(reportEntity).build();
+                    })
+                    .concatWith(totalCount()
+                            .map(totalCount -> ReportStreamElement.builder()
+                                    .estimated(totalCount.isEstimated())
+                                    .totalQueryCount(streamedCount.get())
+                                    .totalItemsCount(totalCount.getValue())
+                                    .percentageCount(StatisticsAggregator.percentage(streamedCount.get(), totalCount.getValue()))
+                                    .build()));
+        });
     }
 
     //Capture statistics
     @Override
     public Mono<StatisticResponse> getLastWeekStatistics() {
+        // Answered from memory once the live counters are loaded
+        StatisticResponse live = liveStatistics.lastWeek();
+        if (live != null) {
+            return Mono.just(live);
+        }
+
         // Obtains last registered date
         Mono<LocalDate> lastDateMono = getLastReportDate();
 
@@ -270,129 +455,127 @@ public class ReportingServiceImpl implements ReportingService{
             LocalDateTime endOfDate = lastDate.atTime(23, 59, 59);
             LocalDateTime startOfDate = lastDate.minusDays(6).atStartOfDay();
 
-            // Queries for type:
-            Mono<Long> errorCountMono = countAllReportsByErrorBodyForDate(startOfDate, endOfDate);
-            Mono<Long> successCountMono = countAllReportsByErrorBodySuccessForDate(startOfDate, endOfDate);
-            Mono<Long> channelPropertyCountMono = countAllReportsByChannelNameForDate("mch-property-synch:sms-property", startOfDate, endOfDate);
-            Mono<Long> channelResidentCountMono = countAllReportsByChannelNameForDate("mch-resident-synch:sms-resident", startOfDate, endOfDate);
-            Mono<Long> channelPropertyDlqCountMono = countAllReportsByChannelNameForDate("mch-property-synch.sms-property.DLQ", startOfDate, endOfDate);
-            Mono<Long> channelResidentDlqCountMono = countAllReportsByChannelNameForDate("mch-resident-synch.sms-resident.DLQ", startOfDate, endOfDate);
-            Mono<Long> totalCountMono = countAllReportsForDate(startOfDate, endOfDate);
-
-            // Combine queries
-            return Mono.zip(errorCountMono, successCountMono, channelPropertyCountMono, channelResidentCountMono, channelPropertyDlqCountMono, channelResidentDlqCountMono, totalCountMono)
-                    .flatMap(tuple -> {
-                        Long errorCount = tuple.getT1();
-                        Long successCount = tuple.getT2();
-                        Long propertyCount = tuple.getT3();
-                        Long residentCount = tuple.getT4();
-                        Long propertyDlqCount = tuple.getT5();
-                        Long residentDlqCount = tuple.getT6();
-                        Long totalCount = tuple.getT7();
-
-                        // Calculate percentages
-                        float errorPercentage = (totalCount != 0) ? ((float) (errorCount * 100) / totalCount) : 0.0f;
-                        float successPercentage = (totalCount != 0) ? ((float) (successCount * 100) / totalCount) : 0.0f;
-                        float propertyPercentage = (totalCount != 0) ? ((float) (propertyCount * 100) / totalCount) : 0.0f;
-                        float residentPercentage = (totalCount != 0) ? ((float) (residentCount * 100) / totalCount) : 0.0f;
-                        float propertyDlqPercentage = (totalCount != 0) ? ((float) (propertyDlqCount * 100) / totalCount) : 0.0f;
-                        float residentDlqPercentage = (totalCount != 0) ? ((float) (residentDlqCount * 100) / totalCount) : 0.0f;
-
-                        // Build the response
-                        StatisticResponse reportResponse = StatisticResponse.builder()
-                                .totalItemsCount(totalCount)
-                                .totalErrorsCount(errorCount)
-                                .totalSuccessCount(successCount)
-                                .totalPropertyCount(propertyCount)
-                                .totalResidentCount(residentCount)
-                                .totalPropertyDlqCount(propertyDlqCount)
-                                .totalResidentDlqCount(residentDlqCount)
-                                .percentageErrorsCount(errorPercentage)
-                                .percentageSuccessCount(successPercentage)
-                                .percentagePropertyCount(propertyPercentage)
-                                .percentageResidentCount(residentPercentage)
-                                .percentagePropertyDlqCount(propertyDlqPercentage)
-                                .percentageResidentDlqCount(residentDlqPercentage)
-                                .build();
-                        return Mono.just(reportResponse);
-                    });
+            return getStatisticsBetween(startOfDate, endOfDate);
         });
     }
 
     @Override
     public Mono<StatisticResponse> getStatisticsForDateRange(String startDate, String endDate) {
-        LocalDate localDate = LocalDate.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime startOfDate = localDate.atStartOfDay();
-
-        LocalDate localDateEnd = LocalDate.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE);
-        LocalDateTime endOfDate = localDateEnd.atTime(23, 59, 59);
-
-        // Queries for type:
-        Mono<Long> errorCountMono = countAllReportsByErrorBodyForDate(startOfDate, endOfDate);
-        Mono<Long> successCountMono = countAllReportsByErrorBodySuccessForDate(startOfDate, endOfDate);
-        Mono<Long> channelPropertyCountMono = countAllReportsByChannelNameForDate("mch-property-synch:sms-property", startOfDate, endOfDate);
-        Mono<Long> channelResidentCountMono = countAllReportsByChannelNameForDate("mch-resident-synch:sms-resident", startOfDate, endOfDate);
-        Mono<Long> channelPropertyDlqCountMono = countAllReportsByChannelNameForDate("mch-property-synch.sms-property.DLQ", startOfDate, endOfDate);
-        Mono<Long> channelResidentDlqCountMono = countAllReportsByChannelNameForDate("mch-resident-synch.sms-resident.DLQ", startOfDate, endOfDate);
-        Mono<Long> totalCountMono = countAllReportsForDate(startOfDate, endOfDate);
-
-        // Combine queries
-        return Mono.zip(errorCountMono, successCountMono, channelPropertyCountMono, channelResidentCountMono, channelPropertyDlqCountMono, channelResidentDlqCountMono, totalCountMono)
-                .flatMap(tuple -> {
-                    Long errorCount = tuple.getT1();
-                    Long successCount = tuple.getT2();
-                    Long propertyCount = tuple.getT3();
-                    Long residentCount = tuple.getT4();
-                    Long propertyDlqCount = tuple.getT5();
-                    Long residentDlqCount = tuple.getT6();
-                    Long totalCount = tuple.getT7();
-
-                    // Calculate percentages
-                    float errorPercentage = (totalCount != 0) ? ((float) (errorCount * 100) / totalCount) : 0.0f;
-                    float successPercentage = (totalCount != 0) ? ((float) (successCount * 100) / totalCount) : 0.0f;
-                    float propertyPercentage = (totalCount != 0) ? ((float) (propertyCount * 100) / totalCount) : 0.0f;
-                    float residentPercentage = (totalCount != 0) ? ((float) (residentCount * 100) / totalCount) : 0.0f;
-                    float propertyDlqPercentage = (totalCount != 0) ? ((float) (propertyDlqCount * 100) / totalCount) : 0.0f;
-                    float residentDlqPercentage = (totalCount != 0) ? ((float) (residentDlqCount * 100) / totalCount) : 0.0f;
+        LocalDateTime startOfDate = ReportDates.startOfDay(startDate);
+        LocalDateTime endOfDate = ReportDates.endOfDay(endDate);
 
-                    // Build the response
-                    StatisticResponse reportResponse = StatisticResponse.builder()
-                            .totalItemsCount(totalCount)
-                            .totalErrorsCount(errorCount)
-                            .totalSuccessCount(successCount)
-                            .totalPropertyCount(propertyCount)
-                            .totalResidentCount(residentCount)
-                            .totalPropertyDlqCount(propertyDlqCount)
-                            .totalResidentDlqCount(residentDlqCount)
-                            .percentageErrorsCount(errorPercentage)
-                            .percentageSuccessCount(successPercentage)
-                            .percentagePropertyCount(propertyPercentage)
-                            .percentageResidentCount(residentPercentage)
-                            .percentagePropertyDlqCount(propertyDlqPercentage)
-                            .percentageResidentDlqCount(residentDlqPercentage)
-                            .build();
-                    return Mono.just(reportResponse);
-                });
+        return getStatisticsBetween(startOfDate, endOfDate);
     }
 
     public Mono<LocalDate> getLastReportDate() {
-        return Mono.justOrEmpty(reportRepository.findTopByOrderByCreatedAtDesc())
-                .map(reportEntity -> reportEntity.getCreatedAt().toLocalDate());
+        return reportCache.lastReportDate(() -> queryExecutor.optional("ReportRepository.findLastCreatedAt", () -> reportRepository.findLastCreatedAt())
+                .map(LocalDateTime::toLocalDate));
     }
-    public Mono<Long> countAllReportsByErrorBodyForDate(LocalDateTime start, LocalDateTime end) {
-        return Mono.just(reportRepository.countAllByErrorBodyContainingIgnoreCaseAndCreatedAtBetween("error", start, end));
+
+    // All counters come from one grouped query over the window
+    public Mono<StatisticResponse> getStatisticsBetween(LocalDateTime start, LocalDateTime end) {
+        return reportCache.statistics(start, end, () -> computeStatisticsBetween(start, end));
     }
 
-    public Mono<Long> countAllReportsByErrorBodySuccessForDate(LocalDateTime start, LocalDateTime end) {
-        return Mono.just(reportRepository.countAllByErrorBodyEqualsAndCreatedAtBetween("success", start, end));
+    private Mono<StatisticResponse> computeStatisticsBetween(LocalDateTime start, LocalDateTime end) {
+        if (reportRollupService.isEnabled()) {
+            return reportRollupService.countStatisticsByChannelBetween(start, end)
+                    .map(statisticsAggregator::aggregate);
+        }
+        return reportRollupService.countEventStatisticsByChannelBetween(start, end)
+                .map(statisticsAggregator::aggregate);
     }
 
-    public Mono<Long> countAllReportsByChannelNameForDate(String channelName, LocalDateTime start, LocalDateTime end) {
-        return Mono.just(reportRepository.countAllByChannelNameEqualsIgnoreCaseAndCreatedAtBetween(channelName, start, end));
+    // Errors grouped by normalised errorBody and channel, only the top rows leave the database
+    @Override
+    public Mono<ErrorSignatureResponse> getTopErrorSignatures(String startDate, String endDate, String channelName, String errorBodyContains, Integer limit) {
+        ReportingProperties.Signatures properties = reportingProperties.getSignatures();
+        int signatureLimit = limit != null ? limit : properties.getDefaultLimit();
+        if (signatureLimit < 1 || signatureLimit > properties.getMaxLimit()) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + properties.getMaxLimit()));
+        }
+        ReportCriteria criteria = ReportCriteria.builder()
+                .start(ReportDates.startOfDay(startDate))
+                .end(ReportDates.endOfDay(endDate))
+                .channelName(channelName)
+                .errorBodyContains(errorBodyContains)
+                .build();
+        return queryExecutor.mono("ReportJdbcRepository.topErrorSignatures", () -> reportJdbcRepository.topErrorSignatures(criteria, signatureLimit, properties.getSampleSize()))
+                .map(rows -> {
+                    List<ErrorSignature> signatures = new ArrayList<>(rows.size());
+                    for (ErrorSignatureRow row : rows) {
+                        signatures.add(ErrorSignature.builder()
+                                .signature(row.getSignature())
+                                .channelName(row.getChannelName())
+                                .count(row.getCount())
+                                .firstSeen(row.getFirstSeen())
+                                .lastSeen(row.getLastSeen())
+                                .sampleIds(row.getSampleIds())
+                                .build());
+                    }
+                    return ErrorSignatureResponse.builder()
+                            .totalErrorCount(rows.isEmpty() ? 0L : rows.get(0).getTotalErrorCount())
+                            .signatureCount(rows.isEmpty() ? 0L : rows.get(0).getSignatureCount())
+                            .signatures(signatures)
+                            .build();
+                });
     }
 
-    public Mono<Long> countAllReportsForDate(LocalDateTime start, LocalDateTime end) {
-        return Mono.just(reportRepository.countAllByCreatedAtBetween(start, end));
+    // Constant time figures for very large tables, nothing here scans report_event
+    @Override
+    public Mono<EstimateResponse> getEstimates() {
+        return queryExecutor.mono("ReportJdbcRepository.estimateTotalCount", reportJdbcRepository::estimateTotalCount)
+                .map(totalCount -> {
+                    // The sketch snapshot is shared, the total goes on a copy
+                    EstimateResponse estimates = reportSketches.estimates();
+                    EstimateResponse.EstimateResponseBuilder response = estimates != null ? estimates.toBuilder() : EstimateResponse.builder().estimated(true);
+                    return response.totalItemsCount(totalCount.orElse(null)).build();
+                });
     }
 
+    // Get counts per time bucket, zero-filled and laid out as parallel arrays
+    @Override
+    public Mono<TimeSeriesResponse> getTimeSeries(String startDate, String endDate, String bucket, String groupBy) {
+        TimeBucket timeBucket = TimeBucket.from(bucket);
+        TimeSeriesGrouping grouping = TimeSeriesGrouping.from(groupBy);
+        LocalDateTime startOfDate = ReportDates.startOfDay(startDate);
+        LocalDateTime endOfDate = ReportDates.endOfDay(endDate);
+        if (endOfDate.isBefore(startOfDate)) {
+            return Mono.error(new IllegalArgumentException("endDate must not be before startDate"));
+        }
+        ChronoUnit unit = timeBucket.getUnit();
+
+        long bucketCount = unit.between(startOfDate, endOfDate) + 1;
+        if (bucketCount > reportingProperties.getTimeseries().getMaxBuckets()) {
+            return Mono.error(new IllegalArgumentException("Range needs " + bucketCount + " buckets, use a wider bucket"));
+        }
+        List<LocalDateTime> timestamps = new ArrayList<>((int) bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            timestamps.add(startOfDate.plus(i, unit));
+        }
+
+        return queryExecutor.mono("ReportJdbcRepository.countByBucket", () -> reportJdbcRepository.countByBucket(timeBucket, grouping, startOfDate, endOfDate))
+                .map(rows -> {
+                    Map<String, long[]> countsByKey = new LinkedHashMap<>();
+                    long totalCount = 0;
+                    for (TimeSeriesRow row : rows) {
+                        int index = (int) unit.between(startOfDate, row.getBucketStart());
+                        countsByKey.computeIfAbsent(row.getKey(), key -> new long[timestamps.size()])[index] += row.getCount();
+                        totalCount += row.getCount();
+                    }
+                    List<TimeSeries> series = new ArrayList<>(countsByKey.size());
+                    countsByKey.forEach((key, counts) -> series.add(TimeSeries.builder()
+                            .key(key)
+                            .counts(counts)
+                            .total(Arrays.stream(counts).sum())
+                            .build()));
+                    return TimeSeriesResponse.builder()
+                            .bucket(timeBucket)
+                            .groupBy(grouping)
+                            .totalItemsCount(totalCount)
+                            .timestamps(timestamps)
+                            .series(series)
+                            .build();
+                });
+    }
 }
@@ -0,0 +1,64 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import mch.reporting.config.ReportingProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Single flight for identical concurrent requests: the first caller runs the query, the others share its result
+@RequiredArgsConstructor
+@Component
+public class RequestCoalescer {
+
+    private final ReportingProperties reportingProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // The key must be the endpoint plus its normalised parameters
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String endpoint, String key, Supplier<Mono<T>> loader) {
+        if (!reportingProperties.getCoalescing().isEnabled()) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            String flightKey = endpoint + "|" + key;
+            AtomicBoolean leader = new AtomicBoolean();
+            Mono<Object> flight = inFlight.computeIfAbsent(flightKey, k -> {
+                leader.set(true);
+                return start(k, loader);
+            });
+            meterRegistry.counter("reporting.coalescer.requests", "endpoint", endpoint, "result", leader.get() ? "executed" : "coalesced")
+                    .increment();
+            return (Mono<T>) flight;
+        });
+    }
+
+    // Successful results stay shared for the reuse window, errors are dropped at once so the next caller retries
+    private <T> Mono<Object> start(String flightKey, Supplier<Mono<T>> loader) {
+        Duration reuseWindow = reportingProperties.getCoalescing().getReuseWindow();
+        AtomicReference<Mono<Object>> self = new AtomicReference<>();
+        Mono<Object> flight = loader.get()
+                .cast(Object.class)
+                .doOnError(e -> inFlight.remove(flightKey, self.get()))
+                .doOnSuccess(value -> {
+                    if (reuseWindow.isZero()) {
+                        inFlight.remove(flightKey, self.get());
+                    } else {
+                        Schedulers.parallel().schedule(() -> inFlight.remove(flightKey, self.get()), reuseWindow.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                })
+                .cache();
+        self.set(flight);
+        return flight;
+    }
+}
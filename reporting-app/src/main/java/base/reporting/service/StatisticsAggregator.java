@@ -0,0 +1,77 @@
+package mch.reporting.service;
+
+import lombok.RequiredArgsConstructor;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Component
+public class StatisticsAggregator {
+
+    public static final String PROPERTY_CHANNEL = "property";
+    public static final String RESIDENT_CHANNEL = "resident";
+    public static final String PROPERTY_DLQ_CHANNEL = "propertyDlq";
+    public static final String RESIDENT_DLQ_CHANNEL = "residentDlq";
+
+    private final ReportingProperties reportingProperties;
+
+    public static float percentage(long part, long total) {
+        return (total != 0) ? ((float) (part * 100) / total) : 0.0f;
+    }
+
+    // Folds the per-channel rows of the grouped query into a single StatisticResponse
+    public StatisticResponse aggregate(List<? extends ChannelStatisticProjection> rows) {
+        long totalCount = 0;
+        long errorCount = 0;
+        long successCount = 0;
+        Map<String, Long> countsByChannel = new HashMap<>();
+
+        for (ChannelStatisticProjection row : rows) {
+            totalCount += valueOf(row.getTotalCount());
+            errorCount += valueOf(row.getErrorCount());
+            successCount += valueOf(row.getSuccessCount());
+            if (row.getChannelName() != null) {
+                countsByChannel.merge(row.getChannelName().toLowerCase(Locale.ROOT), valueOf(row.getTotalCount()), Long::sum);
+            }
+        }
+
+        // Only configured channels are reported, unknown channels still count towards the total
+        Map<String, Long> channelCounts = new LinkedHashMap<>();
+        Map<String, Float> channelPercentages = new LinkedHashMap<>();
+        for (Map.Entry<String, String> channel : reportingProperties.getStatistics().getChannels().entrySet()) {
+            long channelCount = countsByChannel.getOrDefault(channel.getValue().toLowerCase(Locale.ROOT), 0L);
+            channelCounts.put(channel.getKey(), channelCount);
+            channelPercentages.put(channel.getKey(), percentage(channelCount, totalCount));
+        }
+
+        return StatisticResponse.builder()
+                .totalItemsCount(totalCount)
+                .totalErrorsCount(errorCount)
+                .totalSuccessCount(successCount)
+                .totalPropertyCount(channelCounts.getOrDefault(PROPERTY_CHANNEL, 0L))
+                .totalResidentCount(channelCounts.getOrDefault(RESIDENT_CHANNEL, 0L))
+                .totalPropertyDlqCount(channelCounts.getOrDefault(PROPERTY_DLQ_CHANNEL, 0L))
+                .totalResidentDlqCount(channelCounts.getOrDefault(RESIDENT_DLQ_CHANNEL, 0L))
+                .percentageErrorsCount(percentage(errorCount, totalCount))
+                .percentageSuccessCount(percentage(successCount, totalCount))
+                .percentagePropertyCount(channelPercentages.getOrDefault(PROPERTY_CHANNEL, 0.0f))
+                .percentageResidentCount(channelPercentages.getOrDefault(RESIDENT_CHANNEL, 0.0f))
+                .percentagePropertyDlqCount(channelPercentages.getOrDefault(PROPERTY_DLQ_CHANNEL, 0.0f))
+                .percentageResidentDlqCount(channelPercentages.getOrDefault(RESIDENT_DLQ_CHANNEL, 0.0f))
+                .channelCounts(channelCounts)
+                .channelPercentages(channelPercentages)
+                .build();
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
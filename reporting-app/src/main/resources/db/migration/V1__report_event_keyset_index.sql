@@ -0,0 +1,3 @@
+-- Keyset pagination reads report_event ordered by (created_at, id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS report_event_created_at_id_idx
+    ON test_support.report_event (created_at, id);
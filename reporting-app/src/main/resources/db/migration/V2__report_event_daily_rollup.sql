@@ -0,0 +1,19 @@
+-- Per day and channel counters, see ReportRollupService
+CREATE TABLE IF NOT EXISTS test_support.report_event_daily_rollup
+(
+    day           DATE         NOT NULL,
+    channel_name  VARCHAR(255) NOT NULL,
+    total_count   BIGINT       NOT NULL DEFAULT 0,
+    error_count   BIGINT       NOT NULL DEFAULT 0,
+    success_count BIGINT       NOT NULL DEFAULT 0,
+    other_count   BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, channel_name)
+);
+
+-- High-water marks of the incremental jobs reading report_event
+CREATE TABLE IF NOT EXISTS test_support.report_event_watermark
+(
+    name            VARCHAR(64) PRIMARY KEY,
+    last_id         BIGINT NOT NULL,
+    last_created_at TIMESTAMP
+);
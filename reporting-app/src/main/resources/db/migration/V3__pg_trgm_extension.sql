@@ -0,0 +1,2 @@
+-- Trigram operator classes used by the text search indexes
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,6 @@
+-- Serve ILIKE '%term%' on the large text columns without a sequential scan
+CREATE INDEX CONCURRENTLY IF NOT EXISTS report_event_error_body_trgm_idx
+    ON test_support.report_event USING gin (error_body gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS report_event_event_payload_trgm_idx
+    ON test_support.report_event USING gin (event_payload gin_trgm_ops);
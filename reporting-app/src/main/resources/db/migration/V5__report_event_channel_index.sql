@@ -0,0 +1,3 @@
+-- Channel filters compare lower(channel_name) and page by (created_at, id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS report_event_channel_created_at_id_idx
+    ON test_support.report_event (lower(channel_name), created_at, id);
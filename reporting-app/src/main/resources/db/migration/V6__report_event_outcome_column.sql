@@ -0,0 +1,38 @@
+-- Outcome stored with the row instead of matching error_body at query time, see ReportOutcomeBackfillService.
+-- The markers are the reporting.statistics defaults: "error" anywhere in error_body, "success" as the whole body
+ALTER TABLE test_support.report_event ADD COLUMN IF NOT EXISTS outcome VARCHAR(8);
+ALTER TABLE test_support.report_event ADD COLUMN IF NOT EXISTS error_code VARCHAR(64);
+
+CREATE OR REPLACE FUNCTION test_support.report_event_outcome(error_body TEXT) RETURNS VARCHAR
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT CASE
+           WHEN error_body ILIKE '%error%' THEN 'ERROR'
+           WHEN error_body = 'success' THEN 'SUCCESS'
+           ELSE 'OTHER'
+           END
+$$;
+
+-- Value of the first code, errorCode or error_code field, e.g. {"errorCode":"SMS-504"} gives SMS-504
+CREATE OR REPLACE FUNCTION test_support.report_event_error_code(error_body TEXT) RETURNS VARCHAR
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT left(substring(error_body FROM '(?i)(?:code|errorCode|error_code)"?\s*[:=]\s*"?([A-Za-z0-9_.-]+)'), 64)
+$$;
+
+CREATE OR REPLACE FUNCTION test_support.report_event_classify() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.outcome := test_support.report_event_outcome(NEW.error_body);
+    NEW.error_code := test_support.report_event_error_code(NEW.error_body);
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS report_event_classify ON test_support.report_event;
+CREATE TRIGGER report_event_classify
+    BEFORE INSERT OR UPDATE OF error_body
+    ON test_support.report_event
+    FOR EACH ROW
+EXECUTE FUNCTION test_support.report_event_classify();
@@ -0,0 +1,3 @@
+-- Outcome filters page by (created_at, id), the channel makes the per-channel counts index-only
+CREATE INDEX CONCURRENTLY IF NOT EXISTS report_event_outcome_created_at_idx
+    ON test_support.report_event (outcome, created_at, id) INCLUDE (channel_name);
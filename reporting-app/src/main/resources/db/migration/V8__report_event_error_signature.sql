@@ -0,0 +1,19 @@
+-- error_body with its variable parts replaced, rows sharing a signature are the same failure, see /reporting/errors/top.
+-- UUIDs, timestamps and hex values go first so their digits are not rewritten one number at a time.
+-- Numbers shorter than four digits are kept, they are mostly status and error codes
+CREATE OR REPLACE FUNCTION test_support.report_event_error_signature(error_body TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT left(
+           btrim(regexp_replace(
+               regexp_replace(
+                   regexp_replace(
+                       regexp_replace(
+                           regexp_replace(error_body,
+                               '[0-9A-Fa-f]{8}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{4}-[0-9A-Fa-f]{12}', '<uuid>', 'g'),
+                           '\d{4}-\d{2}-\d{2}[T ]\d{2}:\d{2}(:\d{2}(\.\d+)?)?(Z|[+-]\d{2}:?\d{2})?', '<ts>', 'g'),
+                       '\m(0x[0-9A-Fa-f]+|(?=[0-9A-Fa-f]*\d)(?=[0-9A-Fa-f]*[A-Fa-f])[0-9A-Fa-f]{8,})\M', '<hex>', 'g'),
+                   '\d{4,}', '<n>', 'g'),
+               '\s+', ' ', 'g')),
+           500)
+$$;
@@ -0,0 +1,9 @@
+-- V3 ran with Flyway's search_path (test_support), application connections only see public
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace
+               WHERE e.extname = 'pg_trgm' AND n.nspname <> 'public') THEN
+        ALTER EXTENSION pg_trgm SET SCHEMA public;
+    END IF;
+END
+$$;
@@ -0,0 +1,130 @@
+package mch.reporting.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import mch.reporting.config.CodecConfig;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ExportJob;
+import mch.reporting.service.ReportExportService;
+import mch.reporting.service.ReportSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Single values and Flux bodies in each negotiated binary format, through the codecs CodecConfig registers
+class ReportCodecEndpointTest {
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@TempDir
+	Path directory;
+
+	private ReportSnapshotService reportSnapshotService;
+	private WebTestClient webTestClient;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getSnapshots().setDirectory(directory.toString());
+		reportingProperties.getSnapshots().getDefinitions().put("last-week", new ReportingProperties.SnapshotDefinition());
+		reportingProperties.getSnapshots().getDefinitions().put("last-30-days", new ReportingProperties.SnapshotDefinition());
+		Files.write(directory.resolve("last-week.00112233445566778899aabbccddeeff.json.gz"), gzip("{}"));
+		Files.write(directory.resolve("last-30-days.ffeeddccbbaa99887766554433221100.json.gz"), gzip("{}"));
+		reportSnapshotService = new ReportSnapshotService(null, new ObjectMapper(), reportingProperties);
+		reportSnapshotService.loadExisting();
+
+		ReportExportService reportExportService = mock(ReportExportService.class);
+		when(reportExportService.getExportJob("job-1"))
+				.thenReturn(Mono.just(ExportJob.builder().id("job-1").status(ExportJob.Status.COMPLETED).rowCount(42).build()));
+
+		CodecCustomizer codecCustomizer = new CodecConfig().binaryCodecCustomizer(Jackson2ObjectMapperBuilder.json());
+		ReportController reportController = new ReportController(null, reportingProperties, reportExportService, null, null, reportSnapshotService);
+		webTestClient = WebTestClient.bindToController(reportController)
+				.httpMessageCodecs(codecCustomizer::customize)
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		reportSnapshotService.destroy();
+	}
+
+	@Test
+	void smileEncodesASingleValue() {
+		JsonNode job = read(get("/reporting/export/jobs/job-1", SMILE), new SmileFactory());
+
+		assertThat(job.get("id").asText()).isEqualTo("job-1");
+		assertThat(job.get("rowCount").asLong()).isEqualTo(42L);
+	}
+
+	@Test
+	void smileEncodesAFluxAsOneArray() {
+		JsonNode snapshots = read(get("/reporting/snapshots", SMILE), new SmileFactory());
+
+		assertThat(snapshots.isArray()).isTrue();
+		assertThat(snapshots).hasSize(2);
+	}
+
+	@Test
+	void cborEncodesASingleValue() {
+		JsonNode job = read(get("/reporting/export/jobs/job-1", MediaType.APPLICATION_CBOR), new CBORFactory());
+
+		assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+		assertThat(job.get("rowCount").asLong()).isEqualTo(42L);
+	}
+
+	@Test
+	void cborCollectsAFluxIntoOneArray() {
+		JsonNode snapshots = read(get("/reporting/snapshots", MediaType.APPLICATION_CBOR), new CBORFactory());
+
+		assertThat(snapshots.isArray()).isTrue();
+		assertThat(snapshots).hasSize(2);
+		assertThat(snapshots.findValuesAsText("name")).containsExactlyInAnyOrder("last-week", "last-30-days");
+	}
+
+	private byte[] get(String uri, MediaType mediaType) {
+		return webTestClient.get().uri(uri)
+				.accept(mediaType)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(mediaType)
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+	}
+
+	private static JsonNode read(byte[] body, JsonFactory factory) {
+		try {
+			return new ObjectMapper(factory).readTree(body);
+		} catch (Exception e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static byte[] gzip(String json) throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(json.getBytes(StandardCharsets.UTF_8));
+		}
+		return compressed.toByteArray();
+	}
+}
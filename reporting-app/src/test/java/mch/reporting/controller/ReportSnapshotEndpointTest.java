@@ -0,0 +1,115 @@
+package mch.reporting.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.service.ReportSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportSnapshotEndpointTest {
+
+	private static final String HASH = "00112233445566778899aabbccddeeff";
+	private static final String ETAG = "\"" + HASH + "\"";
+
+	@TempDir
+	Path directory;
+
+	private ReportSnapshotService reportSnapshotService;
+	private ReportController reportController;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getSnapshots().setDirectory(directory.toString());
+		reportingProperties.getSnapshots().getDefinitions().put("last-week", new ReportingProperties.SnapshotDefinition());
+		Files.write(directory.resolve("last-week." + HASH + ".json.gz"), gzip("{\"totalItemsCount\":3}"));
+
+		reportSnapshotService = new ReportSnapshotService(null, new ObjectMapper(), reportingProperties);
+		reportSnapshotService.loadExisting();
+		reportController = new ReportController(null, reportingProperties, null, null, null, reportSnapshotService);
+	}
+
+	@AfterEach
+	void tearDown() {
+		reportSnapshotService.destroy();
+	}
+
+	@Test
+	void matchingEtagAnswersNotModified() {
+		StepVerifier.create(reportController.getSnapshot("last-week", ETAG, "gzip"))
+				.assertNext(response -> {
+					assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+					assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+					assertThat(response.getBody()).isNull();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void gzipClientsGetTheStoredFile() {
+		StepVerifier.create(reportController.getSnapshot("last-week", "\"other\"", "gzip, deflate"))
+				.assertNext(response -> {
+					assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+					assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void otherClientsGetTheInflatedResponse() {
+		StepVerifier.create(reportController.getSnapshot("last-week", null, null))
+				.assertNext(response -> {
+					assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+					assertThat(response.getBody()).isNotNull();
+					try {
+						assertThat(new String(response.getBody().getContentAsByteArray(), StandardCharsets.UTF_8))
+								.isEqualTo("{\"totalItemsCount\":3}");
+					} catch (Exception e) {
+						throw new AssertionError(e);
+					}
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void matchesStrongWeakListedAndWildcardTags() {
+		assertThat(ReportController.matches(ETAG, ETAG)).isTrue();
+		assertThat(ReportController.matches("W/" + ETAG, ETAG)).isTrue();
+		assertThat(ReportController.matches("\"a\", " + ETAG, ETAG)).isTrue();
+		assertThat(ReportController.matches("*", ETAG)).isTrue();
+		assertThat(ReportController.matches("\"a\"", ETAG)).isFalse();
+		assertThat(ReportController.matches(null, ETAG)).isFalse();
+	}
+
+	@Test
+	void acceptsGzipUnlessRefused() {
+		assertThat(ReportController.acceptsGzip("gzip")).isTrue();
+		assertThat(ReportController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+		assertThat(ReportController.acceptsGzip("*")).isTrue();
+		assertThat(ReportController.acceptsGzip("gzip;q=0")).isFalse();
+		assertThat(ReportController.acceptsGzip("gzip; q=0.0")).isFalse();
+		assertThat(ReportController.acceptsGzip("deflate")).isFalse();
+		assertThat(ReportController.acceptsGzip(null)).isFalse();
+	}
+
+	private static byte[] gzip(String json) throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(json.getBytes(StandardCharsets.UTF_8));
+		}
+		return compressed.toByteArray();
+	}
+}
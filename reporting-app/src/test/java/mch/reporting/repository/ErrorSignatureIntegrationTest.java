@@ -0,0 +1,84 @@
+package mch.reporting.repository;
+
+import mch.reporting.model.ErrorSignature;
+import mch.reporting.service.ErrorSignatures;
+import mch.reporting.service.ReportingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ErrorSignatureIntegrationTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+			.withInitScript("db/report_event_seed.sql");
+
+	private static final List<String> ERROR_BODIES = List.of(
+			"error 504 for request 3f2b8c1e-9a4d-4e1f-8b2a-0c9d7e6f5a4b at 2024-05-10T10:15:30.123Z, id 1234567",
+			"error 504 for request 00000000-1111-2222-3333-444444444444 at 2024-05-11 08:00:00,  id 98765",
+			"timestamp with offset 2024-05-10 10:15+02:00 and 2024-05-10T10:15:30-0500",
+			"trace 5f3a9b2c7d1e offset 0x1F status 404",
+			"not hex deadbeefcafe but hex deadbeef1 and 12345678",
+			"{\"errorCode\":\"SMS-504\",\"entity\":20240510}",
+			"  tabs\tand\nnewlines   collapse  ",
+			"x".repeat(480) + " 1234 " + "y".repeat(40),
+			"");
+
+	@Autowired
+	private ReportingService reportingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void sqlAndJavaNormalisersAgree() {
+		for (String errorBody : ERROR_BODIES) {
+			assertThat(jdbcTemplate.queryForObject("select test_support.report_event_error_signature(?)", String.class, errorBody))
+					.as(errorBody)
+					.isEqualTo(ErrorSignatures.normalise(errorBody));
+		}
+		assertThat(jdbcTemplate.queryForObject("select test_support.report_event_error_signature(null)", String.class)).isNull();
+	}
+
+	// Every 100th seeded row is an error naming its id, ids of four digits or more share one signature
+	@Test
+	void topErrorSignaturesGroupTheSeededErrors() {
+		StepVerifier.create(reportingService.getTopErrorSignatures("2024-06-01", "2024-06-30", null, null, 3))
+				.assertNext(response -> {
+					assertThat(response.getTotalErrorCount()).isEqualTo(2000L);
+					assertThat(response.getSignatureCount()).isEqualTo(10L);
+					assertThat(response.getSignatures()).extracting(ErrorSignature::getSignature).containsExactly(
+							ErrorSignatures.normalise("Error: timeout contacting sms for entity 200000"),
+							"Error: timeout contacting sms for entity 900",
+							"Error: timeout contacting sms for entity 800");
+
+					ErrorSignature top = response.getSignatures().get(0);
+					assertThat(top.getSignature()).isEqualTo("Error: timeout contacting sms for entity <n>");
+					assertThat(top.getCount()).isEqualTo(1991L);
+					assertThat(top.getChannelName()).isEqualTo("mch-property-synch:sms-property");
+					assertThat(top.getSampleIds()).containsExactly(200000L, 199900L, 199800L, 199700L, 199600L);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void topErrorSignaturesFollowTheTextFilter() {
+		StepVerifier.create(reportingService.getTopErrorSignatures("2024-06-01", "2024-06-30", null, "entity 5", 20))
+				.assertNext(response -> assertThat(response.getSignatures()).extracting(ErrorSignature::getSignature)
+						.containsExactly("Error: timeout contacting sms for entity <n>", "Error: timeout contacting sms for entity 500"))
+				.verifyComplete();
+	}
+}
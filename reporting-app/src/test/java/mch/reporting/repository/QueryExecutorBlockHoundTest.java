@@ -0,0 +1,63 @@
+package mch.reporting.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+class QueryExecutorBlockHoundTest {
+
+	private QueryExecutor queryExecutor;
+
+	@BeforeAll
+	static void installBlockHound() {
+		BlockHound.install();
+	}
+
+	@AfterEach
+	void tearDown() {
+		queryExecutor.destroy();
+	}
+
+	@Test
+	void boundedElasticModeNeverBlocksNonBlockingThreads() {
+		queryExecutor = executor(ReportingProperties.QueryMode.BOUNDED_ELASTIC);
+
+		StepVerifier.create(Mono.delay(Duration.ZERO, Schedulers.parallel())
+						.flatMapMany(tick -> queryExecutor.flux("slowQuery", QueryExecutorBlockHoundTest::slowQuery)))
+				.expectNext(1L, 2L, 3L)
+				.verifyComplete();
+	}
+
+	@Test
+	void directModeIsReportedByBlockHound() {
+		queryExecutor = executor(ReportingProperties.QueryMode.DIRECT);
+
+		StepVerifier.create(Mono.delay(Duration.ZERO, Schedulers.parallel())
+						.flatMapMany(tick -> queryExecutor.flux("slowQuery", QueryExecutorBlockHoundTest::slowQuery)))
+				.expectError(BlockingOperationError.class)
+				.verify();
+	}
+
+	private static QueryExecutor executor(ReportingProperties.QueryMode mode) {
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getQuery().setMode(mode);
+		reportingProperties.getQuery().setThreads(2);
+		return new QueryExecutor(reportingProperties, new SimpleMeterRegistry());
+	}
+
+	// Stands in for a JDBC round trip
+	private static List<Long> slowQuery() throws InterruptedException {
+		Thread.sleep(10);
+		return List.of(1L, 2L, 3L);
+	}
+}
@@ -0,0 +1,69 @@
+package mch.reporting.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryExecutorTierTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final QueryExecutor queryExecutor = new QueryExecutor(new ReportingProperties(), meterRegistry);
+
+	@AfterEach
+	void tearDown() {
+		queryExecutor.destroy();
+	}
+
+	@Test
+	void analyticsQueriesRunOnTheAnalyticsWorkersAndTier() {
+		StepVerifier.create(queryExecutor.mono("ReportRepository.findAll", () -> Thread.currentThread().getName() + "/" + QueryTier.current()))
+				.assertNext(result -> assertThat(result).startsWith("reporting-analytics").endsWith("/ANALYTICS"))
+				.verifyComplete();
+	}
+
+	@Test
+	void otherQueriesStayInteractive() {
+		StepVerifier.create(queryExecutor.mono("ReportRepository.findById", () -> Thread.currentThread().getName() + "/" + QueryTier.current()))
+				.assertNext(result -> assertThat(result).startsWith("reporting-query").endsWith("/INTERACTIVE"))
+				.verifyComplete();
+	}
+
+	@Test
+	void textFiltersRouteAnyQueryToAnalytics() {
+		ReportCriteria criteria = ReportCriteria.builder().errorBodyContains("timeout").build();
+
+		assertThat(queryExecutor.tier("ReportJdbcRepository.count", criteria)).isEqualTo(QueryTier.ANALYTICS);
+		assertThat(queryExecutor.tier("ReportJdbcRepository.count", ReportCriteria.builder().channelName("property").build()))
+				.isEqualTo(QueryTier.INTERACTIVE);
+	}
+
+	@Test
+	void explicitTierOverridesTheName() {
+		StepVerifier.create(queryExecutor.mono("ReportJdbcRepository.findSummaries", QueryTier.ANALYTICS, () -> Thread.currentThread().getName() + "/" + QueryTier.current()))
+				.assertNext(result -> assertThat(result).startsWith("reporting-analytics").endsWith("/ANALYTICS"))
+				.verifyComplete();
+	}
+
+	@Test
+	void aCallRunOnBothTiersIsTimedPerTier() {
+		queryExecutor.mono("ReportJdbcRepository.count", QueryTier.INTERACTIVE, () -> 1L).block();
+		queryExecutor.mono("ReportJdbcRepository.count", QueryTier.ANALYTICS, () -> 1L).block();
+		queryExecutor.mono("ReportJdbcRepository.count", QueryTier.ANALYTICS, () -> 1L).block();
+
+		assertThat(meterRegistry.get("reporting.query").tag("query", "ReportJdbcRepository.count").tag("tier", "interactive").timer().count())
+				.isEqualTo(1L);
+		assertThat(meterRegistry.get("reporting.query").tag("query", "ReportJdbcRepository.count").tag("tier", "analytics").timer().count())
+				.isEqualTo(2L);
+	}
+
+	@Test
+	void tierIsClearedAfterTheCall() throws Exception {
+		QueryTier.ANALYTICS.call(() -> null);
+
+		assertThat(QueryTier.current()).isEqualTo(QueryTier.INTERACTIVE);
+	}
+}
@@ -0,0 +1,52 @@
+package mch.reporting.repository;
+
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ReportOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportCriteriaTest {
+
+	private final OutcomeClassifier outcomeClassifier = new OutcomeClassifier(new ReportingProperties());
+
+	@Test
+	void combinesEveryFilterIntoOnePredicate() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+		ReportCriteria criteria = ReportCriteria.builder()
+				.channelName("property")
+				.start(start)
+				.outcome(ReportOutcome.ERROR)
+				.eventPayloadContains("50%")
+				.build();
+		List<Object> params = new ArrayList<>();
+
+		String where = criteria.toWhereClause(params, outcomeClassifier);
+
+		assertThat(where).isEqualTo(" where lower(channel_name) = lower(?) and created_at >= ?" +
+				" and event_payload ilike ? escape '\\' and error_body ilike ? escape '\\'");
+		assertThat(params).containsExactly("property", start, "%50\\%%", "%error%");
+	}
+
+	@Test
+	void readsTheOutcomeColumnOnceBackfilled() {
+		outcomeClassifier.setBackfilled(true);
+		ReportCriteria criteria = outcomeClassifier.rewrite(ReportCriteria.builder().errorBodyContains("ERROR").build());
+		List<Object> params = new ArrayList<>();
+
+		assertThat(criteria.toWhereClause(params, outcomeClassifier)).isEqualTo(" where outcome = ?");
+		assertThat(params).containsExactly("ERROR");
+	}
+
+	@Test
+	void rendersNothingWithoutFilters() {
+		List<Object> params = new ArrayList<>();
+
+		assertThat(ReportCriteria.all().toWhereClause(params, outcomeClassifier)).isEmpty();
+		assertThat(params).isEmpty();
+	}
+}
@@ -0,0 +1,71 @@
+package mch.reporting.repository;
+
+import mch.reporting.service.ReportingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ReportSearchIntegrationTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+			.withInitScript("db/report_event_seed.sql");
+
+	@Autowired
+	private ReportingService reportingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void errorSearchIsServedByTheTrigramIndex() {
+		// Planner statistics are refreshed once the migrations have created the indexes
+		jdbcTemplate.execute("analyze test_support.report_event");
+
+		String plan = String.join("\n", jdbcTemplate.queryForList(
+				"explain select id from test_support.report_event where error_body ilike '%entity 199900%'", String.class));
+
+		assertThat(plan).contains("report_event_error_body_trgm_idx");
+	}
+
+	@Test
+	void trigramFunctionsAreVisibleToApplicationConnections() {
+		assertThat(jdbcTemplate.queryForObject("select n.nspname from pg_extension e join pg_namespace n on n.oid = e.extnamespace " +
+				"where e.extname = 'pg_trgm'", String.class)).isEqualTo("public");
+		assertThat(jdbcTemplate.queryForObject("select word_similarity('timeout', 'timeout contacting sms')", Float.class)).isEqualTo(1.0f);
+	}
+
+	@Test
+	void errorSearchReturnsRankedAndLimitedMatches() {
+		StepVerifier.create(reportingService.searchReports(ReportField.ERROR_BODY, "timeout contacting", 25))
+				.assertNext(reportResponse -> {
+					assertThat(reportResponse.getReportEntities()).hasSize(25);
+					assertThat(reportResponse.getReportEntities())
+							.allMatch(reportEntity -> reportEntity.getErrorBody().contains("timeout contacting"));
+					assertThat(reportResponse.getTotalItemsCount()).isEqualTo(200000L);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void errorListingCountsMatchesOnce() {
+		StepVerifier.create(reportingService.getAllReportsByErrorBody("ENTITY 1999"))
+				.assertNext(reportResponse -> {
+					// entities 199900 .. 199999 with a multiple of 100: only 199900
+					assertThat(reportResponse.getTotalQueryCount()).isEqualTo(1L);
+					assertThat(reportResponse.getReportEntities()).hasSize(1);
+				})
+				.verifyComplete();
+	}
+}
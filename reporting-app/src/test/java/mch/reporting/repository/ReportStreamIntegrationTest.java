@@ -0,0 +1,104 @@
+package mch.reporting.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.service.ReportingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ReportStreamIntegrationTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+			.withInitScript("db/report_event_seed.sql");
+
+	// Seeded rows are 10 seconds apart from 2024-06-01, the first five fall in this range
+	private static final ReportCriteria FIRST_FIVE = ReportCriteria.builder()
+			.start(LocalDateTime.of(2024, 6, 1, 0, 0))
+			.end(LocalDateTime.of(2024, 6, 1, 0, 0, 50))
+			.build();
+
+	@Autowired
+	private ReportingService reportingService;
+
+	@Autowired
+	private ReportJdbcRepository reportJdbcRepository;
+
+	@Autowired
+	@Qualifier("analyticsDataSource")
+	private HikariDataSource analyticsDataSource;
+
+	@Test
+	void rowsAreEmittedOnlyAsRequested() {
+		StepVerifier.create(reportJdbcRepository.stream(ReportCriteria.all(), 2), 0)
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(200))
+				.thenRequest(3)
+				.expectNextCount(3)
+				.expectNoEvent(Duration.ofMillis(200))
+				.thenRequest(1)
+				.expectNextCount(1)
+				.thenCancel()
+				.verify();
+
+		// Cancelling closes the cursor and returns its connection
+		assertThat(analyticsDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+	}
+
+	@Test
+	void rowsFollowTheCriteria() {
+		StepVerifier.create(reportJdbcRepository.stream(FIRST_FIVE).map(ReportEntity::getId))
+				.expectNext(1L, 2L, 3L, 4L, 5L)
+				.verifyComplete();
+	}
+
+	@Test
+	void cursorIsReleasedBeforeTheCountsElement() {
+		StepVerifier.create(reportingService.streamReports(FIRST_FIVE))
+				.expectNextCount(5)
+				.assertNext(summary -> {
+					assertThat(summary.getReportEntity()).isNull();
+					assertThat(analyticsDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void countsFollowAsTheLastElement() {
+		StepVerifier.create(reportingService.streamReports(ReportCriteria.builder().channelName("mch-property-synch:sms-property").build())
+						.filter(element -> element.getReportEntity() == null))
+				.assertNext(summary -> {
+					assertThat(summary.getTotalQueryCount()).isEqualTo(50000L);
+					assertThat(summary.getTotalItemsCount()).isEqualTo(200000L);
+					assertThat(summary.getPercentageCount()).isEqualTo(25.0f);
+					assertThat(summary.getEstimated()).isFalse();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void emptyStreamsStillEndWithTheCounts() {
+		StepVerifier.create(reportingService.streamReports(ReportCriteria.builder().channelName("unknown").build()))
+				.assertNext(summary -> {
+					assertThat(summary.getReportEntity()).isNull();
+					assertThat(summary.getTotalQueryCount()).isZero();
+					assertThat(summary.getTotalItemsCount()).isEqualTo(200000L);
+				})
+				.verifyComplete();
+	}
+}
@@ -0,0 +1,111 @@
+package mch.reporting.repository;
+
+import mch.reporting.model.ContinuationToken;
+import mch.reporting.model.ReportSummary;
+import mch.reporting.service.ReportingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ReportSummaryIntegrationTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+			.withInitScript("db/report_event_seed.sql");
+
+	// Seeded rows are 10 seconds apart from 2024-06-01, the first five fall in this range
+	private static final ReportCriteria FIRST_FIVE = ReportCriteria.builder()
+			.start(LocalDateTime.of(2024, 6, 1, 0, 0))
+			.end(LocalDateTime.of(2024, 6, 1, 0, 0, 50))
+			.build();
+
+	@Autowired
+	private ReportingService reportingService;
+
+	@Autowired
+	private ReportJdbcRepository reportJdbcRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, event_payload, error_body, created_at) values " +
+				"(300001, 'no-payload', null, 'success', '2024-07-01 00:00:00'), " +
+				"(300002, 'long-payload', repeat('x', 500), 'success', '2024-07-01 00:00:00') on conflict do nothing");
+	}
+
+	@Test
+	void unpagedSummariesListEveryMatchWithoutAToken() {
+		StepVerifier.create(reportingService.getReportSummaries(FIRST_FIVE, null, null))
+				.assertNext(reportResponse -> {
+					assertThat(reportResponse.getReportSummaries()).extracting(ReportSummary::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+					assertThat(reportResponse.getTotalQueryCount()).isEqualTo(5L);
+					assertThat(reportResponse.getContinuationToken()).isNull();
+					assertThat(reportResponse.getReportEntities()).isEmpty();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void pagesFollowEachOtherThroughTheContinuationToken() {
+		String token = reportingService.getReportSummaries(FIRST_FIVE, null, 2)
+				.map(reportResponse -> {
+					assertThat(reportResponse.getReportSummaries()).extracting(ReportSummary::getId).containsExactly(1L, 2L);
+					assertThat(reportResponse.getTotalQueryCount()).isEqualTo(5L);
+					return reportResponse.getContinuationToken();
+				})
+				.block();
+		assertThat(token).isNotNull();
+
+		StepVerifier.create(reportingService.getReportSummaries(FIRST_FIVE, token, 3))
+				.assertNext(reportResponse -> {
+					assertThat(reportResponse.getReportSummaries()).extracting(ReportSummary::getId).containsExactly(3L, 4L, 5L);
+					assertThat(reportResponse.getContinuationToken()).isNull();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void nullPayloadHasNoLengthAndNoPreview() {
+		List<ReportSummary> summaries = reportJdbcRepository.findSummaries(
+				ReportCriteria.builder().channelName("no-payload").build(), null, null);
+
+		assertThat(summaries).hasSize(1);
+		assertThat(summaries.get(0).getPayloadLength()).isNull();
+		assertThat(summaries.get(0).getPayloadPreview()).isNull();
+	}
+
+	@Test
+	void previewIsCutToThePreviewLength() {
+		List<ReportSummary> summaries = reportJdbcRepository.findSummaries(
+				ReportCriteria.builder().channelName("long-payload").build(), null, null);
+
+		assertThat(summaries.get(0).getPayloadLength()).isEqualTo(500);
+		assertThat(summaries.get(0).getPayloadPreview()).hasSize(120);
+	}
+
+	@Test
+	void shortPayloadsAreShownWhole() {
+		List<ReportSummary> summaries = reportJdbcRepository.findSummaries(FIRST_FIVE, new ContinuationToken(LocalDateTime.of(2024, 6, 1, 0, 0, 40), 4L), 10);
+
+		assertThat(summaries).extracting(ReportSummary::getId).containsExactly(5L);
+		assertThat(summaries.get(0).getPayloadPreview()).isEqualTo("{\"entityId\":5,\"source\":\"sms\"}");
+		assertThat(summaries.get(0).getPayloadLength()).isEqualTo(summaries.get(0).getPayloadPreview().length());
+	}
+}
@@ -0,0 +1,36 @@
+package mch.reporting.repository.projection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mch.reporting.entity.ReportEntity;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportEntityProjectionTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@Test
+	void entitiesKeepTheirNullFields() {
+		ReportEntity reportEntity = new ReportEntity();
+		reportEntity.setId(1L);
+
+		JsonNode json = objectMapper.valueToTree(reportEntity);
+
+		assertThat(json.has("errorBody")).isTrue();
+		assertThat(json.get("errorBody").isNull()).isTrue();
+	}
+
+	@Test
+	void projectionsOmitUnselectedFields() {
+		ReportEntity reportEntity = new ReportEntityProjection();
+		reportEntity.setId(1L);
+		reportEntity.setChannelName("property");
+
+		JsonNode json = objectMapper.valueToTree(reportEntity);
+
+		assertThat(json.has("errorBody")).isFalse();
+		assertThat(json.get("channelName").asText()).isEqualTo("property");
+	}
+}
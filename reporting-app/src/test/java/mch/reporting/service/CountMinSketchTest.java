@@ -0,0 +1,22 @@
+package mch.reporting.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+	@Test
+	void neverUndercountsAndStaysCloseForHeavyHitters() {
+		CountMinSketch sketch = new CountMinSketch(4, 4096);
+
+		for (int i = 0; i < 10_000; i++) {
+			sketch.add(SketchHash.hash("timeout"));
+			sketch.add(SketchHash.hash("noise-" + i));
+		}
+
+		assertThat(sketch.estimate(SketchHash.hash("timeout"))).isBetween(10_000L, 10_100L);
+		assertThat(sketch.estimate(SketchHash.hash("noise-1"))).isGreaterThanOrEqualTo(1L);
+		assertThat(sketch.estimate(SketchHash.hash("never seen"))).isLessThan(100L);
+	}
+}
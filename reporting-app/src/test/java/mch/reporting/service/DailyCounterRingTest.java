@@ -0,0 +1,40 @@
+package mch.reporting.service;
+
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DailyCounterRingTest {
+
+	private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+	@Test
+	void sumsTheDaysOfTheWindow() {
+		DailyCounterRing ring = new DailyCounterRing(7, List.of("Property", "resident"));
+
+		ring.add(DAY.minusDays(6), "property", 2, 1, 1);
+		ring.add(DAY, "PROPERTY", 3, 0, 3);
+		ring.add(DAY, "billing", 4, 4, 0);
+
+		List<ChannelStatisticProjection> rows = ring.rows();
+		assertThat(rows).extracting(ChannelStatisticProjection::getTotalCount).containsExactly(5L, 0L, 4L);
+		assertThat(rows.get(2).getErrorCount()).isEqualTo(5L);
+		assertThat(rows.get(2).getSuccessCount()).isEqualTo(4L);
+	}
+
+	@Test
+	void dropsDaysThatLeaveTheWindow() {
+		DailyCounterRing ring = new DailyCounterRing(7, List.of("property"));
+
+		ring.add(DAY, "property", 2, 0, 0);
+		ring.add(DAY.plusDays(7), "property", 3, 0, 0);
+		ring.add(DAY, "property", 5, 0, 0);
+
+		assertThat(ring.getLastDay()).isEqualTo(DAY.plusDays(7));
+		assertThat(ring.rows().get(0).getTotalCount()).isEqualTo(3L);
+	}
+}
@@ -0,0 +1,28 @@
+package mch.reporting.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorSignaturesTest {
+
+	@Test
+	void replacesVariablePartsAndKeepsCodes() {
+		String first = ErrorSignatures.normalise("error 504 for request 3f2b8c1e-9a4d-4e1f-8b2a-0c9d7e6f5a4b at 2024-05-10T10:15:30.123Z, id 1234567");
+		String second = ErrorSignatures.normalise("error 504 for request 00000000-1111-2222-3333-444444444444 at 2024-05-11 08:00:00,  id 98765");
+
+		assertThat(first).isEqualTo("error 504 for request <uuid> at <ts>, id <n>");
+		assertThat(second).isEqualTo(first);
+	}
+
+	@Test
+	void replacesHexTokens() {
+		assertThat(ErrorSignatures.normalise("trace 5f3a9b2c7d1e offset 0x1F status 404"))
+				.isEqualTo("trace <hex> offset <hex> status 404");
+	}
+
+	@Test
+	void keepsNull() {
+		assertThat(ErrorSignatures.normalise(null)).isNull();
+	}
+}
@@ -0,0 +1,31 @@
+package mch.reporting.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+	@Test
+	void smallCardinalitiesAreNearlyExact() {
+		HyperLogLog hyperLogLog = new HyperLogLog(14);
+
+		for (int i = 0; i < 1000; i++) {
+			hyperLogLog.add(SketchHash.hash("channel-" + (i % 12)));
+		}
+
+		assertThat(hyperLogLog.estimate()).isEqualTo(12L);
+	}
+
+	@Test
+	void largeCardinalitiesStayWithinAFewPercent() {
+		HyperLogLog hyperLogLog = new HyperLogLog(14);
+
+		for (int i = 0; i < 200_000; i++) {
+			hyperLogLog.add(SketchHash.hash("signature-" + i));
+		}
+
+		assertThat((double) hyperLogLog.estimate()).isCloseTo(200_000, within(200_000 * 0.03));
+	}
+}
@@ -0,0 +1,47 @@
+package mch.reporting.service;
+
+import mch.reporting.entity.ReportEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportCsvEncoderTest {
+
+	@Test
+	void chunksConcatenateIntoOneGzipCsv() throws IOException {
+		ReportCsvEncoder encoder = new ReportCsvEncoder();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		out.write(encoder.encode(List.of(report(1L, "property", null))));
+		out.write(encoder.encode(List.of(report(2L, "resident", "said \"error\", twice"))));
+		out.write(encoder.finish());
+
+		String csv;
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		assertThat(encoder.getRowCount()).isEqualTo(2L);
+		assertThat(csv.split("\n")).containsExactly(
+				ReportCsvEncoder.HEADER.trim(),
+				"1,\"property\",2024-05-01T10:00,,\"{}\"",
+				"2,\"resident\",2024-05-01T10:00,\"said \"\"error\"\", twice\",\"{}\"");
+	}
+
+	private static ReportEntity report(Long id, String channel, String errorBody) {
+		ReportEntity report = new ReportEntity();
+		report.setId(id);
+		report.setChannelName(channel);
+		report.setErrorBody(errorBody);
+		report.setEventPayload("{}");
+		report.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 0));
+		return report;
+	}
+}
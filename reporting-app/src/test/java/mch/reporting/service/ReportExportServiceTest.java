@@ -0,0 +1,105 @@
+package mch.reporting.service;
+
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.ExportJob;
+import mch.reporting.repository.ReportCriteria;
+import mch.reporting.repository.ReportJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReportExportServiceTest {
+
+	@TempDir
+	Path directory;
+
+	private ReportJdbcRepository reportJdbcRepository;
+	private ReportExportService reportExportService;
+
+	@BeforeEach
+	void setUp() {
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getExport().setDirectory(directory.toString());
+		reportingProperties.getExport().setMaxConcurrentExports(1);
+		reportingProperties.getExport().setJobRetention(Duration.ofHours(1));
+		reportJdbcRepository = mock(ReportJdbcRepository.class);
+		when(reportJdbcRepository.stream(any(ReportCriteria.class), anyInt())).thenReturn(Flux.empty());
+		reportExportService = new ReportExportService(reportJdbcRepository, reportingProperties);
+	}
+
+	@Test
+	void rejectsExportsBeyondTheLimitUntilTheRunningOneEnds() {
+		when(reportJdbcRepository.stream(any(ReportCriteria.class), anyInt())).thenReturn(Flux.never());
+		Disposable running = reportExportService.exportCsvGzipBuffers(ReportCriteria.all()).subscribe();
+
+		StepVerifier.create(reportExportService.exportCsvGzipBuffers(ReportCriteria.all()))
+				.expectError(RejectedExecutionException.class)
+				.verify();
+
+		running.dispose();
+		when(reportJdbcRepository.stream(any(ReportCriteria.class), anyInt())).thenReturn(Flux.empty());
+		StepVerifier.create(reportExportService.exportCsvGzipBuffers(ReportCriteria.all()))
+				.thenConsumeWhile(buffer -> true)
+				.verifyComplete();
+	}
+
+	@Test
+	void unsubscribedExportsHoldNoSlot() {
+		reportExportService.exportCsvGzipBuffers(ReportCriteria.all());
+		reportExportService.exportCsvGzipBuffers(ReportCriteria.all());
+
+		StepVerifier.create(reportExportService.exportCsvGzipBuffers(ReportCriteria.all()))
+				.thenConsumeWhile(buffer -> true)
+				.verifyComplete();
+	}
+
+	@Test
+	void deletesUnknownExportFilesOlderThanTheRetention() throws Exception {
+		Path expired = old(Files.createFile(directory.resolve("report_event_old.csv.gz")));
+		Path recent = Files.createFile(directory.resolve("report_event_new.csv.gz"));
+		Path unrelated = old(Files.createFile(directory.resolve("other.csv.gz")));
+
+		reportExportService.deleteExpiredFiles();
+
+		assertThat(expired).doesNotExist();
+		assertThat(recent).exists();
+		assertThat(unrelated).exists();
+	}
+
+	@Test
+	void keepsTheFilesOfKnownJobs() throws Exception {
+		ExportJob completed = reportExportService.startExportJob(ReportCriteria.all());
+		assertThat(completed.getStatus()).isEqualTo(ExportJob.Status.COMPLETED);
+		Path completedFile = old(Path.of(completed.getFile()));
+
+		when(reportJdbcRepository.stream(any(ReportCriteria.class), anyInt())).thenReturn(Flux.never());
+		ExportJob running = reportExportService.startExportJob(ReportCriteria.all());
+		Path runningFile = old(Path.of(running.getFile() + ".part"));
+
+		reportExportService.deleteExpiredFiles();
+
+		assertThat(completedFile).exists();
+		assertThat(runningFile).exists();
+	}
+
+	private static Path old(Path file) throws Exception {
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+		return file;
+	}
+}
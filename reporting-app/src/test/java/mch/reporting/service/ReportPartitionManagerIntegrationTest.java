@@ -0,0 +1,151 @@
+package mch.reporting.service;
+
+import mch.reporting.config.ReportingProperties;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Runs maintain() against report_event created the ways the producing services may have created it
+@Testcontainers(disabledWithoutDocker = true)
+class ReportPartitionManagerIntegrationTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private DriverManagerDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private ReportPartitionManager reportPartitionManager;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("drop schema if exists test_support cascade");
+		jdbcTemplate.execute("create schema test_support");
+
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getPartitioning().setEnabled(true);
+		reportingProperties.getPartitioning().setMonthsAhead(1);
+		reportPartitionManager = new ReportPartitionManager(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+				mock(ReportExportService.class), mock(ReportCache.class), reportingProperties);
+	}
+
+	@Test
+	void convertsThePlainTableAndRoutesRowsOutsideTheLegacyBoundToTheDefaultPartition() {
+		createAndMigrate("id BIGINT PRIMARY KEY");
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, error_body, created_at) values (1, 'a', 'Error: x', ?)",
+				LocalDateTime.now().minusMonths(2));
+
+		reportPartitionManager.maintain();
+
+		assertThat(relkind("report_event")).isEqualTo("p");
+		assertThat(partitionOf("report_event_legacy")).isEqualTo("report_event");
+		assertThat(partitionOf("report_event_default")).isEqualTo("report_event");
+		assertThat(jdbcTemplate.queryForObject("select count(*) from test_support.report_event", Long.class)).isEqualTo(1L);
+
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, error_body, created_at) values (2, 'a', 'success', ?)", LocalDateTime.now());
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, error_body, created_at) values (3, 'a', 'success', null)");
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, error_body, created_at) values (4, 'a', 'success', ?)",
+				LocalDateTime.now().plusYears(5));
+
+		assertThat(jdbcTemplate.queryForList("select id from test_support.report_event_legacy order by id", Long.class)).containsExactly(1L, 2L);
+		assertThat(jdbcTemplate.queryForList("select id from test_support.report_event_default order by id", Long.class)).containsExactly(3L, 4L);
+		// The classify trigger moved to the parent
+		assertThat(jdbcTemplate.queryForObject("select outcome from test_support.report_event where id = 1", String.class)).isEqualTo("ERROR");
+		assertThat(jdbcTemplate.queryForObject("select outcome from test_support.report_event where id = 2", String.class)).isEqualTo("SUCCESS");
+	}
+
+	@Test
+	void identityIdsContinueFromASequenceOwnedByTheParent() {
+		createAndMigrate("id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY");
+		jdbcTemplate.update("insert into test_support.report_event (channel_name, created_at) values ('a', ?), ('a', ?)",
+				LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(1));
+
+		reportPartitionManager.maintain();
+
+		assertThat(relkind("report_event")).isEqualTo("p");
+		jdbcTemplate.update("insert into test_support.report_event (channel_name, created_at) values ('a', ?)", LocalDateTime.now());
+		assertThat(jdbcTemplate.queryForObject("select max(id) from test_support.report_event", Long.class)).isEqualTo(3L);
+		assertThat(jdbcTemplate.queryForObject("select pg_get_serial_sequence('test_support.report_event', 'id')", String.class))
+				.isEqualTo("test_support.report_event_id_seq");
+	}
+
+	@Test
+	void serialIdsKeepTheirSequenceNowOwnedByTheParent() {
+		createAndMigrate("id BIGSERIAL PRIMARY KEY");
+		jdbcTemplate.update("insert into test_support.report_event (channel_name, created_at) values ('a', ?), ('a', ?)",
+				LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(1));
+
+		reportPartitionManager.maintain();
+
+		jdbcTemplate.update("insert into test_support.report_event (channel_name, created_at) values ('a', ?)", LocalDateTime.now());
+		assertThat(jdbcTemplate.queryForObject("select max(id) from test_support.report_event", Long.class)).isEqualTo(3L);
+		assertThat(jdbcTemplate.queryForObject("select pg_get_serial_sequence('test_support.report_event', 'id')", String.class))
+				.isEqualTo("test_support.report_event_id_seq");
+	}
+
+	@Test
+	void createsMonthsAheadAndMovesTheirRowsOutOfTheDefaultPartition() {
+		YearMonth currentMonth = YearMonth.now();
+		LocalDateTime monthStart = currentMonth.atDay(1).atStartOfDay();
+		jdbcTemplate.execute("create table test_support.report_event (id bigint not null, channel_name varchar(255), created_at timestamp) " +
+				"partition by range (created_at)");
+		jdbcTemplate.execute("create table test_support.report_event_legacy partition of test_support.report_event " +
+				"for values from (minvalue) to ('" + monthStart.toString().replace('T', ' ') + "')");
+		jdbcTemplate.execute("create table test_support.report_event_default partition of test_support.report_event default");
+		jdbcTemplate.update("insert into test_support.report_event (id, channel_name, created_at) values (1, 'a', ?), (2, 'a', ?), (3, 'a', null)",
+				monthStart.plusDays(1), monthStart.plusMonths(1).plusDays(1));
+
+		reportPartitionManager.maintain();
+
+		String current = "report_event" + currentMonth.format(DateTimeFormatter.ofPattern("'_y'yyyy'm'MM"));
+		String next = "report_event" + currentMonth.plusMonths(1).format(DateTimeFormatter.ofPattern("'_y'yyyy'm'MM"));
+		assertThat(partitionOf(current)).isEqualTo("report_event");
+		assertThat(partitionOf(next)).isEqualTo("report_event");
+		assertThat(jdbcTemplate.queryForList("select id from test_support." + current, Long.class)).containsExactly(1L);
+		assertThat(jdbcTemplate.queryForList("select id from test_support." + next, Long.class)).containsExactly(2L);
+		assertThat(jdbcTemplate.queryForList("select id from test_support.report_event_default", Long.class)).containsExactly(3L);
+
+		// A second run finds every month in place
+		reportPartitionManager.maintain();
+		assertThat(jdbcTemplate.queryForObject("select count(*) from pg_inherits where inhparent = 'test_support.report_event'::regclass",
+				Long.class)).isEqualTo(4L);
+	}
+
+	// The table as a producing service creates it, then the migrations of this service on top
+	private void createAndMigrate(String idColumn) {
+		jdbcTemplate.execute("create table test_support.report_event (" + idColumn + ", channel_name varchar(255), " +
+				"event_payload text, error_body text, created_at timestamp)");
+		Flyway.configure()
+				.dataSource(dataSource)
+				.schemas("test_support")
+				.baselineOnMigrate(true)
+				.baselineVersion("0")
+				.load()
+				.migrate();
+	}
+
+	private String relkind(String table) {
+		return jdbcTemplate.queryForObject("select c.relkind::text from pg_class c join pg_namespace n on n.oid = c.relnamespace " +
+				"where n.nspname = 'test_support' and c.relname = ?", String.class, table);
+	}
+
+	private String partitionOf(String table) {
+		return jdbcTemplate.queryForObject("select p.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+				"join pg_class p on p.oid = i.inhparent where c.relname = ?", String.class, table);
+	}
+}
@@ -0,0 +1,68 @@
+package mch.reporting.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportPartitionManagerTest {
+
+	@Test
+	void parsesTheMinvalueBoundOfTheLegacyPartition() {
+		ReportPartitionManager.Partition partition = ReportPartitionManager.partition("report_event_legacy",
+				"FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')");
+
+		assertThat(partition.getName()).isEqualTo("report_event_legacy");
+		assertThat(partition.getFrom()).isNull();
+		assertThat(partition.getTo()).isEqualTo(LocalDateTime.of(2026, 11, 1, 0, 0));
+	}
+
+	@Test
+	void parsesAMonthlyBound() {
+		ReportPartitionManager.Partition partition = ReportPartitionManager.partition("report_event_y2026m11",
+				"FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')");
+
+		assertThat(partition.getFrom()).isEqualTo(LocalDateTime.of(2026, 11, 1, 0, 0));
+		assertThat(partition.getTo()).isEqualTo(LocalDateTime.of(2026, 12, 1, 0, 0));
+	}
+
+	@Test
+	void skipsTheDefaultPartition() {
+		assertThat(ReportPartitionManager.partition("report_event_default", "DEFAULT")).isNull();
+	}
+
+	@Test
+	void rejectsUnknownBounds() {
+		assertThatThrownBy(() -> ReportPartitionManager.partition("report_event_list", "FOR VALUES IN ('a')"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void adjacentMonthsDoNotOverlap() {
+		ReportPartitionManager.Partition november = ReportPartitionManager.partition("report_event_y2026m11",
+				"FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')");
+
+		assertThat(november.overlaps(LocalDateTime.of(2026, 12, 1, 0, 0), LocalDateTime.of(2027, 1, 1, 0, 0))).isFalse();
+		assertThat(november.overlaps(LocalDateTime.of(2026, 10, 1, 0, 0), LocalDateTime.of(2026, 11, 1, 0, 0))).isFalse();
+	}
+
+	@Test
+	void overlappingRangesOverlap() {
+		ReportPartitionManager.Partition november = ReportPartitionManager.partition("report_event_y2026m11",
+				"FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')");
+
+		assertThat(november.overlaps(LocalDateTime.of(2026, 11, 15, 0, 0), LocalDateTime.of(2026, 12, 15, 0, 0))).isTrue();
+	}
+
+	@Test
+	void legacyPartitionOverlapsEverythingBeforeItsCutover() {
+		ReportPartitionManager.Partition legacy = ReportPartitionManager.partition("report_event_legacy",
+				"FOR VALUES FROM (MINVALUE) TO ('2026-12-01 00:00:00')");
+
+		assertThat(legacy.overlaps(LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2020, 2, 1, 0, 0))).isTrue();
+		assertThat(legacy.overlaps(LocalDateTime.of(2026, 11, 1, 0, 0), LocalDateTime.of(2026, 12, 1, 0, 0))).isTrue();
+		assertThat(legacy.overlaps(LocalDateTime.of(2026, 12, 1, 0, 0), LocalDateTime.of(2027, 1, 1, 0, 0))).isFalse();
+	}
+}
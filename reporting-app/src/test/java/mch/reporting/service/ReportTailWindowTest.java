@@ -0,0 +1,56 @@
+package mch.reporting.service;
+
+import mch.reporting.entity.ReportEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportTailWindowTest {
+
+	@Test
+	void rowsCommittedOutOfOrderAreEmittedOnce() {
+		ReportTailService.TailWindow window = new ReportTailService.TailWindow(10);
+		window.start(100);
+
+		assertThat(ids(window.accept(rows(101, 103)))).containsExactly(101L, 103L);
+		assertThat(window.from()).isEqualTo(100L);
+
+		// 102 committed after 103 and shows up on the next read of the window
+		assertThat(ids(window.accept(rows(101, 102, 103, 104)))).containsExactly(102L, 104L);
+		assertThat(ids(window.accept(rows(101, 102, 103, 104)))).isEmpty();
+	}
+
+	@Test
+	void windowTrailsTheHighestIdSeen() {
+		ReportTailService.TailWindow window = new ReportTailService.TailWindow(10);
+		window.start(100);
+
+		window.accept(rows(101, 150));
+
+		assertThat(window.from()).isEqualTo(140L);
+		assertThat(ids(window.accept(rows(145, 150, 151)))).containsExactly(145L, 151L);
+	}
+
+	@Test
+	void rowsUpToTheStartAreNeverEmitted() {
+		ReportTailService.TailWindow window = new ReportTailService.TailWindow(10);
+		window.start(100);
+
+		assertThat(ids(window.accept(rows(95, 101)))).containsExactly(101L);
+	}
+
+	private static List<ReportEntity> rows(long... ids) {
+		return Arrays.stream(ids).mapToObj(id -> {
+			ReportEntity reportEntity = new ReportEntity();
+			reportEntity.setId(id);
+			return reportEntity;
+		}).toList();
+	}
+
+	private static List<Long> ids(List<ReportEntity> rows) {
+		return rows.stream().map(ReportEntity::getId).toList();
+	}
+}
@@ -0,0 +1,156 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.model.ReportStreamElement;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReportingServiceLookupTest {
+
+	// Ids 1 to 9 exist, others do not
+	private static final long LAST_EXISTING_ID = 9L;
+
+	private final ReportingProperties reportingProperties = new ReportingProperties();
+	private QueryExecutor queryExecutor;
+	private ReportJdbcRepository reportJdbcRepository;
+	private ReportingServiceImpl reportingService;
+
+	@BeforeEach
+	void setUp() {
+		reportingProperties.getLookup().setChunkSize(2);
+		reportingProperties.getLookup().setMaxIds(6);
+		queryExecutor = new QueryExecutor(reportingProperties, new SimpleMeterRegistry());
+
+		reportJdbcRepository = mock(ReportJdbcRepository.class);
+		// Rows come back in whatever order the database reads them
+		when(reportJdbcRepository.findByIds(anyCollection())).thenAnswer(invocation -> {
+			List<ReportEntity> rows = new ArrayList<>();
+			for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+				if (id <= LAST_EXISTING_ID) {
+					rows.add(0, reportEntity(id));
+				}
+			}
+			return rows;
+		});
+		ReportRepository reportRepository = mock(ReportRepository.class);
+		when(reportRepository.count()).thenReturn(200L);
+		ReportCache reportCache = mock(ReportCache.class);
+		when(reportCache.totalCount(any())).thenAnswer(invocation -> invocation.<Supplier<Mono<Long>>>getArgument(0).get());
+
+		reportingService = new ReportingServiceImpl(reportRepository, queryExecutor, reportJdbcRepository, mock(StatisticsAggregator.class),
+				mock(ReportRollupService.class), reportCache, mock(LiveStatistics.class), mock(ReportSketches.class), reportingProperties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		queryExecutor.destroy();
+	}
+
+	@Test
+	void elementsKeepTheRequestOrderAcrossChunks() {
+		StepVerifier.create(reportingService.lookupIds(List.of(5L, 1L, 8L, 3L, 2L)))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(5L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(1L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(8L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(3L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(2L))
+				.assertNext(element -> assertThat(element.getTotalQueryCount()).isEqualTo(5L))
+				.verifyComplete();
+
+		verify(reportJdbcRepository).findByIds(Set.of(5L, 1L));
+		verify(reportJdbcRepository).findByIds(Set.of(8L, 3L));
+		verify(reportJdbcRepository).findByIds(Set.of(2L));
+	}
+
+	@Test
+	void duplicateIdsAreAnsweredEachTime() {
+		StepVerifier.create(reportingService.lookupIds(List.of(4L, 4L, 7L, 4L)))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(4L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(4L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(7L))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(4L))
+				.assertNext(element -> assertThat(element.getTotalQueryCount()).isEqualTo(4L))
+				.verifyComplete();
+
+		// A chunk queries each of its ids once
+		verify(reportJdbcRepository).findByIds(Set.of(4L));
+	}
+
+	@Test
+	void missingIdsKeepTheirPlace() {
+		StepVerifier.create(reportingService.lookupIds(List.of(1L, 42L, 2L, 43L)))
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(1L))
+				.assertNext(element -> {
+					assertThat(element.getReportEntity()).isNull();
+					assertThat(element.getMissingId()).isEqualTo(42L);
+				})
+				.assertNext(element -> assertThat(element.getReportEntity().getId()).isEqualTo(2L))
+				.assertNext(element -> assertThat(element.getMissingId()).isEqualTo(43L))
+				.assertNext(element -> assertThat(element.getTotalQueryCount()).isEqualTo(2L))
+				.verifyComplete();
+	}
+
+	@Test
+	void trailingElementCarriesTheCounts() {
+		StepVerifier.create(reportingService.lookupIds(List.of(1L, 2L, 3L, 42L)).last())
+				.assertNext(element -> {
+					assertThat(element.getReportEntity()).isNull();
+					assertThat(element.getMissingId()).isNull();
+					assertThat(element.getTotalQueryCount()).isEqualTo(3L);
+					assertThat(element.getTotalItemsCount()).isEqualTo(200L);
+					assertThat(element.getPercentageCount()).isEqualTo(1.5f);
+					assertThat(element.getEstimated()).isFalse();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void rejectsMoreIdsThanTheMaximumBeforeQuerying() {
+		StepVerifier.create(reportingService.lookupIds(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L)))
+				.expectErrorMessage("At most 6 ids per request")
+				.verify();
+
+		verifyNoInteractions(reportJdbcRepository);
+	}
+
+	@Test
+	void getByIdsListsFoundAndMissingIds() {
+		StepVerifier.create(reportingService.getByIds(List.of(3L, 42L, 1L)))
+				.assertNext(response -> {
+					assertThat(response.getReportEntities()).extracting(ReportEntity::getId).containsExactly(3L, 1L);
+					assertThat(response.getMissingIds()).containsExactly(42L);
+					assertThat(response.getTotalQueryCount()).isEqualTo(2L);
+					assertThat(response.getTotalItemsCount()).isEqualTo(200L);
+				})
+				.verifyComplete();
+	}
+
+	private static ReportEntity reportEntity(long id) {
+		ReportEntity reportEntity = new ReportEntity();
+		reportEntity.setId(id);
+		reportEntity.setChannelName("mch-property-synch:sms-property");
+		return reportEntity;
+	}
+}
@@ -0,0 +1,39 @@
+package mch.reporting.service;
+
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportField;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ReportingServiceSearchTest {
+
+	private final QueryExecutor queryExecutor = mock(QueryExecutor.class);
+	private final ReportJdbcRepository reportJdbcRepository = mock(ReportJdbcRepository.class);
+	private final ReportingServiceImpl reportingService = new ReportingServiceImpl(mock(ReportRepository.class), queryExecutor,
+			reportJdbcRepository, mock(StatisticsAggregator.class), mock(ReportRollupService.class), mock(ReportCache.class),
+			mock(LiveStatistics.class), mock(ReportSketches.class), new ReportingProperties());
+
+	@Test
+	void rejectsAZeroLimit() {
+		StepVerifier.create(reportingService.searchReports(ReportField.ERROR_BODY, "timeout", 0))
+				.expectErrorMessage("limit must be positive")
+				.verify();
+
+		verifyNoInteractions(queryExecutor, reportJdbcRepository);
+	}
+
+	@Test
+	void rejectsANegativeLimit() {
+		StepVerifier.create(reportingService.searchReports(ReportField.EVENT_PAYLOAD, "timeout", -5))
+				.expectErrorMessage("limit must be positive")
+				.verify();
+
+		verifyNoInteractions(queryExecutor, reportJdbcRepository);
+	}
+}
@@ -0,0 +1,107 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.TimeBucket;
+import mch.reporting.model.TimeSeriesGrouping;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.projection.TimeSeriesRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReportingServiceTimeSeriesTest {
+
+	private final ReportingProperties reportingProperties = new ReportingProperties();
+	private QueryExecutor queryExecutor;
+	private ReportJdbcRepository reportJdbcRepository;
+	private ReportingServiceImpl reportingService;
+
+	@BeforeEach
+	void setUp() {
+		queryExecutor = new QueryExecutor(reportingProperties, new SimpleMeterRegistry());
+		reportJdbcRepository = mock(ReportJdbcRepository.class);
+		when(reportJdbcRepository.countByBucket(any(TimeBucket.class), any(TimeSeriesGrouping.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+				.thenReturn(List.of());
+		reportingService = new ReportingServiceImpl(mock(ReportRepository.class), queryExecutor, reportJdbcRepository, mock(StatisticsAggregator.class),
+				mock(ReportRollupService.class), mock(ReportCache.class), mock(LiveStatistics.class), mock(ReportSketches.class), reportingProperties);
+	}
+
+	private void rows(TimeSeriesRow... rows) {
+		when(reportJdbcRepository.countByBucket(any(TimeBucket.class), any(TimeSeriesGrouping.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+				.thenReturn(List.of(rows));
+	}
+
+	@AfterEach
+	void tearDown() {
+		queryExecutor.destroy();
+	}
+
+	@Test
+	void countsLandInTheirBucketAndEmptyBucketsAreZero() {
+		rows(
+				new TimeSeriesRow(LocalDateTime.of(2024, 5, 1, 0, 0), "property", 4L),
+				new TimeSeriesRow(LocalDateTime.of(2024, 5, 3, 0, 0), "property", 2L),
+				new TimeSeriesRow(LocalDateTime.of(2024, 5, 3, 0, 0), "billing", 1L));
+
+		StepVerifier.create(reportingService.getTimeSeries("2024-05-01", "2024-05-03", "day", "channel"))
+				.assertNext(response -> {
+					assertThat(response.getTimestamps()).containsExactly(
+							LocalDateTime.of(2024, 5, 1, 0, 0),
+							LocalDateTime.of(2024, 5, 2, 0, 0),
+							LocalDateTime.of(2024, 5, 3, 0, 0));
+					assertThat(response.getTotalItemsCount()).isEqualTo(7L);
+					assertThat(response.getSeries()).hasSize(2);
+					assertThat(response.getSeries().get(0).getKey()).isEqualTo("property");
+					assertThat(response.getSeries().get(0).getCounts()).containsExactly(4L, 0L, 2L);
+					assertThat(response.getSeries().get(0).getTotal()).isEqualTo(6L);
+					assertThat(response.getSeries().get(1).getCounts()).containsExactly(0L, 0L, 1L);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void hourBucketsCoverEveryHourOfTheRange() {
+		rows(new TimeSeriesRow(LocalDateTime.of(2024, 5, 1, 23, 0), "all", 5L));
+
+		StepVerifier.create(reportingService.getTimeSeries("2024-05-01", "2024-05-01", "hour", "none"))
+				.assertNext(response -> {
+					assertThat(response.getTimestamps()).hasSize(24);
+					assertThat(response.getSeries().get(0).getCounts()[23]).isEqualTo(5L);
+					assertThat(response.getSeries().get(0).getCounts()[0]).isZero();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void emptyRangeHasTimestampsButNoSeries() {
+		StepVerifier.create(reportingService.getTimeSeries("2024-05-01", "2024-05-02", "day", "none"))
+				.assertNext(response -> {
+					assertThat(response.getTimestamps()).hasSize(2);
+					assertThat(response.getSeries()).isEmpty();
+					assertThat(response.getTotalItemsCount()).isZero();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void rejectsAnEndBeforeTheStart() {
+		StepVerifier.create(reportingService.getTimeSeries("2024-05-03", "2024-05-01", "day", "none"))
+				.expectError(IllegalArgumentException.class)
+				.verify();
+
+		verifyNoInteractions(reportJdbcRepository);
+	}
+}
@@ -0,0 +1,58 @@
+package mch.reporting.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RequestCoalescer requestCoalescer = new RequestCoalescer(new ReportingProperties(), meterRegistry);
+
+	@Test
+	void concurrentIdenticalRequestsShareOneCall() {
+		AtomicInteger calls = new AtomicInteger();
+		Sinks.One<String> result = Sinks.one();
+
+		Mono<String> first = requestCoalescer.coalesce("lastWeek", "", () -> {
+			calls.incrementAndGet();
+			return result.asMono();
+		});
+		Mono<String> second = requestCoalescer.coalesce("lastWeek", "", () -> {
+			calls.incrementAndGet();
+			return Mono.just("other");
+		});
+
+		StepVerifier.create(Mono.zip(first, second))
+				.then(() -> result.tryEmitValue("statistics"))
+				.assertNext(tuple -> assertThat(tuple.getT2()).isEqualTo("statistics"))
+				.verifyComplete();
+		assertThat(calls).hasValue(1);
+		assertThat(meterRegistry.counter("reporting.coalescer.requests", "endpoint", "lastWeek", "result", "coalesced").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void failuresAreNotReused() {
+		AtomicInteger calls = new AtomicInteger();
+
+		StepVerifier.create(requestCoalescer.coalesce("statistic-range", "a", () -> {
+					calls.incrementAndGet();
+					return Mono.error(new IllegalStateException("down"));
+				}))
+				.verifyError(IllegalStateException.class);
+		StepVerifier.create(requestCoalescer.coalesce("statistic-range", "a", () -> {
+					calls.incrementAndGet();
+					return Mono.just("ok");
+				}))
+				.expectNext("ok")
+				.verifyComplete();
+		assertThat(calls).hasValue(2);
+	}
+}
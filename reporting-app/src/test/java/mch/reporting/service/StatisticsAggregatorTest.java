@@ -0,0 +1,76 @@
+package mch.reporting.service;
+
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatisticsAggregatorTest {
+
+	private StatisticsAggregator statisticsAggregator;
+
+	@BeforeEach
+	void setUp() {
+		ReportingProperties reportingProperties = new ReportingProperties();
+		reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.PROPERTY_CHANNEL, "mch-property-synch:sms-property");
+		reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.PROPERTY_DLQ_CHANNEL, "mch-property-synch.sms-property.DLQ");
+		reportingProperties.getStatistics().getChannels().put("billing", "mch-billing-synch:sms-billing");
+		statisticsAggregator = new StatisticsAggregator(reportingProperties);
+	}
+
+	@Test
+	void aggregatesAllChannelsIntoOneResponse() {
+		StatisticResponse response = statisticsAggregator.aggregate(List.of(
+				row("mch-property-synch:sms-property", 6L, 1L, 5L),
+				row("mch-property-synch.sms-property.dlq", 2L, 2L, 0L),
+				row("mch-billing-synch:sms-billing", 2L, 0L, 2L)));
+
+		assertThat(response.getTotalItemsCount()).isEqualTo(10L);
+		assertThat(response.getTotalErrorsCount()).isEqualTo(3L);
+		assertThat(response.getTotalSuccessCount()).isEqualTo(7L);
+		assertThat(response.getTotalPropertyCount()).isEqualTo(6L);
+		assertThat(response.getTotalPropertyDlqCount()).isEqualTo(2L);
+		assertThat(response.getTotalResidentCount()).isZero();
+		assertThat(response.getPercentagePropertyCount()).isEqualTo(60.0f);
+		assertThat(response.getChannelCounts()).containsEntry("billing", 2L);
+		assertThat(response.getChannelPercentages()).containsEntry("billing", 20.0f);
+	}
+
+	@Test
+	void emptyWindowHasNoPercentages() {
+		StatisticResponse response = statisticsAggregator.aggregate(List.of());
+
+		assertThat(response.getTotalItemsCount()).isZero();
+		assertThat(response.getPercentageErrorsCount()).isZero();
+		assertThat(response.getChannelCounts()).containsEntry("billing", 0L);
+	}
+
+	private static ChannelStatisticProjection row(String channelName, Long total, Long errors, Long success) {
+		return new ChannelStatisticProjection() {
+			@Override
+			public String getChannelName() {
+				return channelName;
+			}
+
+			@Override
+			public Long getTotalCount() {
+				return total;
+			}
+
+			@Override
+			public Long getErrorCount() {
+				return errors;
+			}
+
+			@Override
+			public Long getSuccessCount() {
+				return success;
+			}
+		};
+	}
+}
@@ -0,0 +1,24 @@
+-- report_event is owned by the producing services, the tests create it the way they do
+CREATE SCHEMA IF NOT EXISTS test_support;
+
+CREATE TABLE test_support.report_event
+(
+    id            BIGINT PRIMARY KEY,
+    channel_name  VARCHAR(255),
+    event_payload TEXT,
+    error_body    TEXT,
+    created_at    TIMESTAMP
+);
+
+INSERT INTO test_support.report_event (id, channel_name, event_payload, error_body, created_at)
+SELECT g,
+       CASE g % 4
+           WHEN 0 THEN 'mch-property-synch:sms-property'
+           WHEN 1 THEN 'mch-resident-synch:sms-resident'
+           WHEN 2 THEN 'mch-property-synch.sms-property.DLQ'
+           ELSE 'mch-resident-synch.sms-resident.DLQ'
+           END,
+       '{"entityId":' || g || ',"source":"sms"}',
+       CASE WHEN g % 100 = 0 THEN 'Error: timeout contacting sms for entity ' || g ELSE 'success' END,
+       TIMESTAMP '2024-06-01 00:00:00' + g * INTERVAL '10 seconds'
+FROM generate_series(1, 200000) g;
@@ -0,0 +1,134 @@
+package mch.reporting.bench;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mch.reporting.config.ReportingProperties;
+import mch.reporting.entity.ReportEntity;
+import mch.reporting.repository.OutcomeClassifier;
+import mch.reporting.repository.QueryExecutor;
+import mch.reporting.repository.ReportJdbcRepository;
+import mch.reporting.repository.ReportRepository;
+import mch.reporting.repository.projection.ChannelStatisticProjection;
+import mch.reporting.service.LiveStatistics;
+import mch.reporting.service.ReportCache;
+import mch.reporting.service.ReportRollupService;
+import mch.reporting.service.ReportSketches;
+import mch.reporting.service.ReportingServiceImpl;
+import mch.reporting.service.StatisticsAggregator;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Builds ReportingServiceImpl over canned data, without Spring or a database
+final class BenchFixtures {
+
+    static final String[] CHANNELS = {
+            "mch-property-synch:sms-property",
+            "mch-resident-synch:sms-resident",
+            "mch-property-synch.sms-property.DLQ",
+            "mch-resident-synch.sms-resident.DLQ"
+    };
+
+    private BenchFixtures() {
+    }
+
+    static ReportingProperties properties() {
+        ReportingProperties reportingProperties = new ReportingProperties();
+        reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.PROPERTY_CHANNEL, CHANNELS[0]);
+        reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.RESIDENT_CHANNEL, CHANNELS[1]);
+        reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.PROPERTY_DLQ_CHANNEL, CHANNELS[2]);
+        reportingProperties.getStatistics().getChannels().put(StatisticsAggregator.RESIDENT_DLQ_CHANNEL, CHANNELS[3]);
+        // Measure the pipeline, not the thread hop or the caches
+        reportingProperties.getQuery().setMode(ReportingProperties.QueryMode.DIRECT);
+        reportingProperties.getQuery().setTimeout(null);
+        reportingProperties.getCache().setEnabled(false);
+        reportingProperties.getRollup().setEnabled(false);
+        reportingProperties.getLive().setEnabled(false);
+        return reportingProperties;
+    }
+
+    static List<ReportEntity> reports(int count) {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 0, 0);
+        List<ReportEntity> reports = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            ReportEntity reportEntity = new ReportEntity();
+            reportEntity.setId((long) i);
+            reportEntity.setChannelName(CHANNELS[i % CHANNELS.length]);
+            reportEntity.setEventPayload("{\"entityId\":" + i + ",\"source\":\"sms\",\"attributes\":{\"name\":\"Unit " + i + "\",\"floor\":" + (i % 20) + "}}");
+            reportEntity.setErrorBody(i % 100 == 0 ? "Error: timeout contacting \"sms\" for entity " + i + "\n\tat mch.sync.Client.call" : "success");
+            reportEntity.setCreatedAt(start.plusSeconds(i * 10L));
+            reports.add(reportEntity);
+        }
+        return reports;
+    }
+
+    static List<ChannelStatisticProjection> channelStatistics() {
+        List<ChannelStatisticProjection> rows = new ArrayList<>();
+        for (int i = 0; i < CHANNELS.length; i++) {
+            long total = 10_000L * (i + 1);
+            rows.add(row(CHANNELS[i].toLowerCase(), total, total / 100, total - total / 100));
+        }
+        return rows;
+    }
+
+    static ReportingServiceImpl reportingService(List<ReportEntity> reports) {
+        ReportingProperties reportingProperties = properties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReportRepository reportRepository = cannedRepository(reports, channelStatistics());
+        QueryExecutor queryExecutor = new QueryExecutor(reportingProperties, meterRegistry);
+        OutcomeClassifier outcomeClassifier = new OutcomeClassifier(reportingProperties);
+        ReportJdbcRepository reportJdbcRepository = new ReportJdbcRepository(null, null, queryExecutor, outcomeClassifier, reportingProperties);
+        StatisticsAggregator statisticsAggregator = new StatisticsAggregator(reportingProperties);
+        return new ReportingServiceImpl(
+                reportRepository,
+                queryExecutor,
+                reportJdbcRepository,
+                statisticsAggregator,
+                new ReportRollupService(reportRepository, null, null, queryExecutor, null, outcomeClassifier, reportingProperties),
+                new ReportCache(reportingProperties, reportRepository, queryExecutor, meterRegistry),
+                new LiveStatistics(reportingProperties, reportRepository, reportJdbcRepository, statisticsAggregator, meterRegistry),
+                new ReportSketches(reportingProperties, reportJdbcRepository, meterRegistry),
+                reportingProperties);
+    }
+
+    // Only the finders used by the benchmarked paths answer
+    private static ReportRepository cannedRepository(List<ReportEntity> reports, List<ChannelStatisticProjection> statistics) {
+        return (ReportRepository) Proxy.newProxyInstance(ReportRepository.class.getClassLoader(), new Class<?>[]{ReportRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll", "findAllByCreatedAtBetween", "findAllByChannelNameEqualsIgnoreCase" -> reports;
+                    case "count" -> (long) reports.size();
+                    case "findById" -> Optional.of(reports.get(0));
+                    case "countStatisticsByChannelBetween", "countOutcomeStatisticsByChannelBetween" -> statistics;
+                    case "findLastCreatedAt" -> Optional.of(reports.get(reports.size() - 1).getCreatedAt());
+                    case "findMaxId" -> Optional.of((long) reports.size());
+                    case "countChangedRows" -> 0L;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static ChannelStatisticProjection row(String channelName, Long total, Long errors, Long success) {
+        return new ChannelStatisticProjection() {
+            @Override
+            public String getChannelName() {
+                return channelName;
+            }
+
+            @Override
+            public Long getTotalCount() {
+                return total;
+            }
+
+            @Override
+            public Long getErrorCount() {
+                return errors;
+            }
+
+            @Override
+            public Long getSuccessCount() {
+                return success;
+            }
+        };
+    }
+}
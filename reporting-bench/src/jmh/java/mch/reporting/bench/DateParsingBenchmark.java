@@ -0,0 +1,38 @@
+package mch.reporting.bench;
+
+import mch.reporting.model.ContinuationToken;
+import mch.reporting.service.ReportDates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Request parameter parsing done on every call
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateParsingBenchmark {
+
+    private final String date = "2024-06-15";
+    private final String token = new ContinuationToken(LocalDateTime.of(2024, 6, 15, 10, 30, 15), 123456L).encode();
+
+    @Benchmark
+    public LocalDateTime startOfDay() {
+        return ReportDates.startOfDay(date);
+    }
+
+    @Benchmark
+    public LocalDateTime endOfDay() {
+        return ReportDates.endOfDay(date);
+    }
+
+    @Benchmark
+    public ContinuationToken decodeContinuationToken() {
+        return ContinuationToken.decode(token);
+    }
+}
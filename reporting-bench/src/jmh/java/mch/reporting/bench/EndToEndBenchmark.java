@@ -0,0 +1,142 @@
+package mch.reporting.bench;
+
+import mch.reporting.ReportingApplication;
+import mch.reporting.model.ReportResponse;
+import mch.reporting.model.ReportStreamElement;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.service.ReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+// Every ReportService endpoint against an H2 database seeded with report_event rows
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class EndToEndBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(ReportingApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // Command line arguments take precedence over the Postgres datasource of application.yml
+        context = application.run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;INIT=CREATE SCHEMA IF NOT EXISTS test_support",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--spring.flyway.enabled=false",
+                "--reporting.rollup.enabled=false",
+                "--reporting.cache.enabled=false",
+                // The classify trigger and its backfill functions only exist on Postgres
+                "--reporting.outcome.column-enabled=false");
+        seed(context.getBean(JdbcTemplate.class), rows);
+        reportService = context.getBean(ReportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("insert into test_support.report_event (id, channel_name, event_payload, error_body, created_at) " +
+                "select x, " +
+                "case mod(x, 4) when 0 then 'mch-property-synch:sms-property' when 1 then 'mch-resident-synch:sms-resident' " +
+                "when 2 then 'mch-property-synch.sms-property.DLQ' else 'mch-resident-synch.sms-resident.DLQ' end, " +
+                "concat('{\"entityId\":', x, ',\"source\":\"sms\"}'), " +
+                "case when mod(x, 100) = 0 then concat('Error: timeout contacting sms for entity ', x) else 'success' end, " +
+                "dateadd('SECOND', x, timestamp '2024-01-01 00:00:00') " +
+                "from system_range(1, ?)", rows);
+        jdbcTemplate.execute("create index report_event_created_at_id_idx on test_support.report_event (created_at, id)");
+    }
+
+    @Benchmark
+    public ReportResponse getAll() {
+        return reportService.getAll(null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getAllFirstPage() {
+        return reportService.getAll(100, null, null, "full").block();
+    }
+
+    // Same listing without the text bodies, the default view
+    @Benchmark
+    public ReportResponse getByDateBetweenSummaries() {
+        return reportService.getByDateBetween("2024-01-02", "2024-01-08", null, null, null, "summary").block();
+    }
+
+    @Benchmark
+    public ReportResponse getById() {
+        return reportService.getById(rows / 2L).block();
+    }
+
+    @Benchmark
+    public ReportResponse getByChannel() {
+        return reportService.getByChannel("mch-property-synch.sms-property.DLQ", null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getByDate() {
+        return reportService.getByDate("2024-01-05", null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getByDateBetween() {
+        return reportService.getByDateBetween("2024-01-02", "2024-01-08", null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getByError() {
+        return reportService.getByError("timeout", null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getBySuccess() {
+        return reportService.getBySuccess("success", 1000, null, null, "full").block();
+    }
+
+    @Benchmark
+    public ReportResponse getByPayload() {
+        return reportService.getByPayload("\"entityId\":4242,", null, null, null, "full").block();
+    }
+
+    @Benchmark
+    public StatisticResponse getLastWeek() {
+        return reportService.getLastWeek().block();
+    }
+
+    @Benchmark
+    public StatisticResponse getStatisticByRange() {
+        return reportService.getStatisticByRange("2024-01-01", "2024-01-12").block();
+    }
+
+    @Benchmark
+    public ReportStreamElement streamByDateBetween() {
+        return reportService.streamByDateBetween("2024-01-02", "2024-01-08").blockLast();
+    }
+}
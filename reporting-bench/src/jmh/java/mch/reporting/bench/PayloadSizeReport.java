@@ -0,0 +1,25 @@
+package mch.reporting.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mch.reporting.model.StatisticResponse;
+
+// Bytes on the wire for the payloads SerializationBenchmark times, JMH itself only reports time and allocation.
+// Run with ./gradlew :reporting-bench:payloadSizes
+public class PayloadSizeReport {
+
+    private static final int[] REPORT_COUNTS = {100, 10000, 100000};
+
+    public static void main(String[] args) throws Exception {
+        StatisticResponse statisticResponse = SerializationBenchmark.statisticResponse();
+        System.out.printf("%-10s %12s %14s %14s%n", "format", "reportCount", "reportResponse", "statistics");
+        for (int reportCount : REPORT_COUNTS) {
+            Object reportResponse = SerializationBenchmark.reportResponse(reportCount);
+            for (String format : SerializationBenchmark.FORMATS) {
+                ObjectMapper objectMapper = SerializationBenchmark.objectMapper(format);
+                System.out.printf("%-10s %12d %14d %14d%n", format, reportCount,
+                        SerializationBenchmark.encode(objectMapper, format, reportResponse).length,
+                        SerializationBenchmark.encode(objectMapper, format, statisticResponse).length);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package mch.reporting.bench;
+
+import mch.reporting.model.ReportResponse;
+import mch.reporting.model.StatisticResponse;
+import mch.reporting.service.ReportingServiceImpl;
+import mch.reporting.service.StatisticsAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// ReportingServiceImpl assembling responses over canned repository results
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseBuildingBenchmark {
+
+    @Param({"100", "10000"})
+    private int reportCount;
+
+    private ReportingServiceImpl reportingService;
+
+    @Setup
+    public void setUp() {
+        reportingService = BenchFixtures.reportingService(BenchFixtures.reports(reportCount));
+    }
+
+    @Benchmark
+    public ReportResponse getAllReports() {
+        return reportingService.getAllReports().block();
+    }
+
+    @Benchmark
+    public ReportResponse getByDateBetween() {
+        return reportingService.getByDateBetween("2024-06-01", "2024-06-30").block();
+    }
+
+    @Benchmark
+    public ReportResponse getById() {
+        return reportingService.getById(1L).block();
+    }
+
+    @Benchmark
+    public StatisticResponse getStatisticsForDateRange() {
+        return reportingService.getStatisticsForDateRange("2024-06-01", "2024-06-30").block();
+    }
+
+    @Benchmark
+    public float percentage() {
+        return StatisticsAggregator.percentage(reportCount / 3, reportCount);
+    }
+}
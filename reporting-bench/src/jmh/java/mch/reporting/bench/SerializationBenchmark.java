@@ -0,0 +1,91 @@
+package mch.reporting.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import mch.reporting.model.ReportResponse;
+import mch.reporting.model.StatisticResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Jackson serialisation of the response payloads in each negotiated format, configured like the WebFlux codecs.
+// The encoded sizes of the same payloads are listed by PayloadSizeReport, run with ./gradlew :reporting-bench:payloadSizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    static final String[] FORMATS = {"json", "json-gzip", "smile", "cbor"};
+
+    @Param({"100", "10000", "100000"})
+    private int reportCount;
+
+    // json-gzip is what a client sending Accept-Encoding: gzip receives
+    @Param({"json", "json-gzip", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private ReportResponse reportResponse;
+    private StatisticResponse statisticResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = objectMapper(format);
+        reportResponse = reportResponse(reportCount);
+        statisticResponse = statisticResponse();
+    }
+
+    @Benchmark
+    public byte[] reportResponse() throws Exception {
+        return encode(objectMapper, format, reportResponse);
+    }
+
+    @Benchmark
+    public byte[] statisticResponse() throws Exception {
+        return encode(objectMapper, format, statisticResponse);
+    }
+
+    static ObjectMapper objectMapper(String format) {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        return new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static ReportResponse reportResponse(int reportCount) {
+        return BenchFixtures.reportingService(BenchFixtures.reports(reportCount)).getAllReports().block();
+    }
+
+    static StatisticResponse statisticResponse() {
+        return BenchFixtures.reportingService(BenchFixtures.reports(1)).getLastWeekStatistics().block();
+    }
+
+    static byte[] encode(ObjectMapper objectMapper, String format, Object value) throws IOException {
+        if (!"json-gzip".equals(format)) {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, value);
+        }
+        return bytes.toByteArray();
+    }
+}